@@ -0,0 +1,275 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paint-time benchmark of the signal layer on a synthetic grid network, without SUMO.
+ * "before" replays the per-frame path the map used before the signal tables were precomputed
+ * (TL ID list, controlled lanes and RYG state per TL, Lane.getShape plus placement math per link,
+ * a new label font per link) against an in-memory stand-in for TraCI that hands out fresh copies,
+ * as the SWIG getters do. "after" paints the same network with SignalPainter from the
+ * TrafficLightIndex tables. Both draw into the same BufferedImage.
+ *
+ * The stand-in answers without a socket: by default "before" pays no round-trip cost at all, although
+ * on a live connection every counted TraCI call adds one. The reported speed-up is therefore a lower
+ * bound unless --rtt-us is set, which busy-waits that long per call to model the round trip.
+ *
+ * Lives in the bench/ source root (a test source in the module), so it is not part of the application.
+ * Usage: javac -d out -cp "lib/*" src/*.java bench/SignalPaintBenchmark.java
+ *        java -Djava.awt.headless=true -cp "out:lib/*:resources" SignalPaintBenchmark
+ *        [--tls n] [--lanes n] [--width px] [--height px] [--frames n] [--rtt-us micros] [--no-labels]
+ */
+public class SignalPaintBenchmark {
+    private static final double SPACING = 200.0; // Distance between neighbouring junctions (m)
+    private static final double LANE_WIDTH = 3.2;
+    private static final String[] DIRECTIONS = {"n", "e", "s", "w"};
+    private static final double[] DIR_X = {0, 1, 0, -1}; // Approach comes from this side of the junction
+    private static final double[] DIR_Y = {1, 0, -1, 0};
+    private static final char[] PHASE = {'g', 'g', 'y', 'r', 'r', 'r'};
+
+    public static void main(String[] args) {
+        int tls = 600, lanes = 3, width = 1200, height = 800, frames = 200;
+        long rttNanos = 0;
+        boolean labels = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--tls" -> tls = Integer.parseInt(args[++i]);
+                case "--lanes" -> lanes = Integer.parseInt(args[++i]);
+                case "--width" -> width = Integer.parseInt(args[++i]);
+                case "--height" -> height = Integer.parseInt(args[++i]);
+                case "--frames" -> frames = Integer.parseInt(args[++i]);
+                case "--rtt-us" -> rttNanos = Long.parseLong(args[++i]) * 1000;
+                case "--no-labels" -> labels = false;
+                default -> {
+                    System.err.println("Usage: SignalPaintBenchmark [--tls n] [--lanes n] [--width px] [--height px]"
+                            + " [--frames n] [--rtt-us micros] [--no-labels]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        // 1. Synthetic network: a grid of signalized junctions with four multi-lane approaches each
+        SumoNetwork network = gridNetwork(tls, lanes);
+        TrafficLightIndex index = TrafficLightIndex.fromNetwork(network);
+        String[] states = new String[index.size()];
+        for (int t = 0; t < states.length; t++) {
+            StringBuilder state = new StringBuilder();
+            for (int link = 0; link < index.getLinkCount(t); link++) {
+                state.append(PHASE[(t + link) % PHASE.length]);
+            }
+            states[t] = state.toString();
+        }
+        WorldSnapshot snapshot = new WorldSnapshot(0, 0.0, WorldSnapshot.Vehicles.EMPTY,
+                WorldSnapshot.Vehicles.EMPTY, index, states, null);
+        FakeTraci traci = new FakeTraci(network, states, rttNanos);
+
+        // 2. Fit the grid into the image, as the map does at its initial zoom
+        double[] bounds = network.getBoundary();
+        float mapScale = (float) Math.min((width - 40) / (bounds[2] - bounds[0]), (height - 40) / (bounds[3] - bounds[1]));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(20 - bounds[0] * mapScale, 20 + bounds[3] * mapScale);
+
+        // 3. Warm up both paths, then time them alternately so drift hits both equally
+        SignalPainter painter = new SignalPainter();
+        boolean showLabels = labels;
+        Runnable before = () -> paintBefore(g, traci, mapScale, showLabels);
+        Runnable after = () -> painter.paint(g, snapshot, mapScale, showLabels);
+        for (int i = 0; i < Math.max(20, frames / 4); i++) {
+            before.run();
+            after.run();
+        }
+        traci.calls = 0;
+        long beforeNanos = 0, afterNanos = 0;
+        for (int i = 0; i < frames; i++) {
+            beforeNanos += time(before);
+            afterNanos += time(after);
+        }
+        g.dispose();
+
+        System.out.printf(Locale.ROOT, "Network: %d TLs, %d links, image %dx%d, scale %.3f, labels %s, rtt %d us%n",
+                index.size(), links(index), width, height, mapScale, labels ? "on" : "off", rttNanos / 1000);
+        System.out.printf(Locale.ROOT, "before: %8.3f ms/frame (%d TraCI calls per frame)%n",
+                beforeNanos / 1e6 / frames, traci.calls / frames);
+        System.out.printf(Locale.ROOT, "after:  %8.3f ms/frame (0 TraCI calls per frame)%n", afterNanos / 1e6 / frames);
+    }
+
+    private static long time(Runnable frame) {
+        long start = System.nanoTime();
+        frame.run();
+        return System.nanoTime() - start;
+    }
+
+    private static int links(TrafficLightIndex index) {
+        int links = 0;
+        for (int t = 0; t < index.size(); t++) links += index.getLinkCount(t);
+        return links;
+    }
+
+    /**
+     * The signal layer as drawn per frame before the tables were precomputed (TraCI calls via the stand-in)
+     */
+    private static void paintBefore(Graphics2D g2d, FakeTraci traci, float mapScale, boolean showTLStatus) {
+        List<String> tlIds = traci.getIDList();
+        for (String tlId : tlIds) {
+            List<String> lanes = traci.getControlledLanes(tlId);
+            String state = traci.getRedYellowGreenState(tlId).toLowerCase();
+
+            for (int i = 0; i < lanes.size() && i < state.length(); i++) {
+                String laneId = lanes.get(i);
+                char s = state.charAt(i);
+
+                double[] pos = signalPosition(traci.getShape(laneId));
+                int sx = (int) (pos[0] * mapScale);
+                int sy = (int) (-pos[1] * mapScale);
+
+                g2d.setColor(switch (s) {
+                    case 'g' -> Color.GREEN;
+                    case 'y' -> Color.YELLOW;
+                    case 'r' -> Color.RED;
+                    default  -> Color.GRAY;
+                });
+                int size = Math.max(3, Math.min(10, (int) (6 * mapScale)));
+                g2d.fillOval(sx - size / 2, sy - size / 2, size, size);
+                g2d.setColor(Color.BLACK);
+                g2d.drawOval(sx - size / 2, sy - size / 2, size - 1, size - 1);
+
+                if (showTLStatus) {
+                    g2d.setFont(new Font("Arial", Font.PLAIN, Math.max(5, (int) (6 * mapScale))));
+                    g2d.drawString(laneId.split("_")[0], sx - 10, sy - 12);
+                }
+            }
+        }
+    }
+
+    /**
+     * Former getSignalPosition(): 2 m back from the lane end, 1.5 m lateral offset
+     */
+    private static double[] signalPosition(List<double[]> points) {
+        double[] last = points.get(points.size() - 1);
+        double[] prev = points.get(points.size() - 2);
+        double dx = last[0] - prev[0];
+        double dy = last[1] - prev[1];
+        double len = Math.hypot(dx, dy);
+        double ratio = (len > 2.0) ? (2.0 / len) : 0;
+        double bx = last[0] - ratio * dx;
+        double by = last[1] - ratio * dy;
+        if (len > 0) {
+            bx += (-dy / len) * 1.5;
+            by += (dx / len) * 1.5;
+        }
+        return new double[]{bx, by};
+    }
+
+    /**
+     * Grid of cols x rows junctions, each with one TL controlling lanes approaches from all four sides
+     */
+    private static SumoNetwork gridNetwork(int tls, int lanes) {
+        int cols = (int) Math.ceil(Math.sqrt(tls * 1.5)); // Roughly the 3:2 aspect of the image
+        RoadGeometryStore.Builder roads = new RoadGeometryStore.Builder();
+        String[] tlIds = new String[tls];
+        String[] programs = new String[tls];
+        int[] linkOffset = new int[tls + 1];
+        List<String> linkLanes = new ArrayList<>();
+        String[] junctionIds = new String[tls];
+        float[] junctionX = new float[tls];
+        float[] junctionY = new float[tls];
+
+        for (int t = 0; t < tls; t++) {
+            double cx = (t % cols) * SPACING;
+            double cy = (t / cols) * SPACING;
+            tlIds[t] = "J" + t;
+            programs[t] = "0";
+            junctionIds[t] = tlIds[t];
+            junctionX[t] = (float) cx;
+            junctionY[t] = (float) cy;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                String edgeId = "e" + t + DIRECTIONS[d];
+                for (int k = 0; k < lanes; k++) {
+                    // Lane k runs toward the junction and stops 10 m before its center
+                    double offset = (k + 0.5) * LANE_WIDTH;
+                    double ox = DIR_Y[d] * offset, oy = -DIR_X[d] * offset;
+                    float[] px = {(float) (cx + DIR_X[d] * (SPACING / 2) + ox), (float) (cx + DIR_X[d] * 10 + ox)};
+                    float[] py = {(float) (cy + DIR_Y[d] * (SPACING / 2) + oy), (float) (cy + DIR_Y[d] * 10 + oy)};
+                    String laneId = edgeId + "_" + k;
+                    roads.addLane(edgeId, laneId, (float) LANE_WIDTH, 13.9f, px, py);
+                    linkLanes.add(laneId);
+                }
+            }
+            linkOffset[t + 1] = linkLanes.size();
+        }
+
+        int rows = (tls + cols - 1) / cols;
+        double[] boundary = {-SPACING / 2, -SPACING / 2, (cols - 0.5) * SPACING, (rows - 0.5) * SPACING};
+        int[] junctionOffset = new int[tls + 1]; // No junction outlines
+        return new SumoNetwork(roads.build(), boundary, junctionIds, junctionX, junctionY, junctionOffset,
+                new float[0], new float[0], tlIds, programs, linkOffset, linkLanes.toArray(new String[0]));
+    }
+
+    /**
+     * In-memory stand-in for the TraCI getters of the former paint path: every call returns a fresh copy
+     * and optionally busy-waits one modelled round trip
+     */
+    private static final class FakeTraci {
+        private final SumoNetwork network;
+        private final String[] states;
+        private final long rttNanos;
+        private final Map<String, Integer> tlNumbers = new HashMap<>();
+        long calls = 0;
+
+        FakeTraci(SumoNetwork network, String[] states, long rttNanos) {
+            this.network = network;
+            this.states = states;
+            this.rttNanos = rttNanos;
+            for (int t = 0; t < network.getTrafficLightCount(); t++) {
+                tlNumbers.put(network.getTlId(t), t);
+            }
+        }
+
+        List<String> getIDList() {
+            roundTrip();
+            List<String> ids = new ArrayList<>(network.getTrafficLightCount());
+            for (int t = 0; t < network.getTrafficLightCount(); t++) ids.add(network.getTlId(t));
+            return ids;
+        }
+
+        List<String> getControlledLanes(String tlId) {
+            roundTrip();
+            int t = tlNumbers.get(tlId);
+            List<String> lanes = new ArrayList<>(network.getTlLinkCount(t));
+            for (int link = 0; link < network.getTlLinkCount(t); link++) lanes.add(network.getTlLinkLane(t, link));
+            return lanes;
+        }
+
+        String getRedYellowGreenState(String tlId) {
+            roundTrip();
+            return states[tlNumbers.get(tlId)].toUpperCase();
+        }
+
+        List<double[]> getShape(String laneId) {
+            roundTrip();
+            RoadGeometryStore roads = network.getRoads();
+            int lane = roads.getLaneIndex(laneId);
+            List<double[]> points = new ArrayList<>();
+            for (int p = roads.getLaneStart(lane); p < roads.getLaneEnd(lane); p++) {
+                points.add(new double[]{roads.getX(p), roads.getY(p)});
+            }
+            return points;
+        }
+
+        private void roundTrip() {
+            calls++;
+            if (rttNanos <= 0) return;
+            long end = System.nanoTime() + rttNanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
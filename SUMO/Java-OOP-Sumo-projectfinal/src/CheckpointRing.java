@@ -0,0 +1,154 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Bounded on-disk ring of Simulation.saveState checkpoints, taken every K simulated seconds.
+ * The oldest checkpoints are evicted once the ring exceeds its byte budget or falls out of the
+ * retention window (simulated seconds behind the newest checkpoint).
+ * Each checkpoint also carries the registry totals, so statistics stay continuous after a rewind.
+ * Accessed only by the simulation thread (under TRACI_LOCK).
+ */
+public class CheckpointRing {
+    private static final Logger logger = LogManager.getLogger(CheckpointRing.class);
+
+    /**
+     * One saved state and the Java-side aggregates at that step
+     */
+    public static final class Checkpoint {
+        final int step;
+        final double simTime;
+        final File file;
+        final long bytes;
+        final double totalDistance;
+        final double estimatedDistance;
+        final double totalTime;
+        final int departed;
+        final int arrived;
+
+        Checkpoint(int step, double simTime, File file, VehicleRegistry registry) {
+            this.step = step;
+            this.simTime = simTime;
+            this.file = file;
+            this.bytes = file.length();
+            this.totalDistance = registry.getTotalDistance();
+            this.estimatedDistance = registry.getEstimatedDistance();
+            this.totalTime = registry.getTotalTime();
+            this.departed = registry.getDepartedTotal();
+            this.arrived = registry.getArrivedTotal();
+        }
+
+        public int getStep() { return step; }
+        public double getSimTime() { return simTime; }
+        public File getFile() { return file; }
+
+        /**
+         * Put the aggregates of this checkpoint back into the registry
+         */
+        public void restoreTotals(VehicleRegistry registry) {
+            registry.restoreTotals(totalDistance, estimatedDistance, totalTime, departed, arrived);
+        }
+    }
+
+    private final double intervalSeconds; // <= 0 disables checkpoints
+    private final long maxBytes;
+    private final double maxAgeSeconds;
+    private final Deque<Checkpoint> entries = new ArrayDeque<>(); // Ascending by step
+    private File directory;
+    private long totalBytes = 0;
+    private double lastTime = 0; // Simulation time of the newest checkpoint
+
+    public CheckpointRing(double intervalSeconds, long maxBytes, double maxAgeSeconds) {
+        this.intervalSeconds = intervalSeconds;
+        this.maxBytes = maxBytes;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Whether a checkpoint should be taken at this simulation time
+     */
+    public boolean isDue(double simTime) {
+        return intervalSeconds > 0 && simTime >= lastTime + intervalSeconds;
+    }
+
+    /**
+     * File for the next checkpoint (the ring directory is created on first use)
+     */
+    public File nextFile(int step) throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("sumo-checkpoints-").toFile();
+            directory.deleteOnExit();
+        }
+        File file = new File(directory, "step_" + step + ".sbx");
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Register a saved checkpoint and evict old ones beyond the byte budget or retention window
+     */
+    public void add(Checkpoint checkpoint) {
+        entries.addLast(checkpoint);
+        totalBytes += checkpoint.bytes;
+        lastTime = checkpoint.simTime;
+        while (entries.size() > 1 && (totalBytes > maxBytes
+                || entries.peekFirst().simTime < checkpoint.simTime - maxAgeSeconds)) {
+            delete(entries.pollFirst());
+        }
+        logger.debug("Checkpoint at step {} ({} KB, {} in ring, {} KB total)",
+                checkpoint.step, checkpoint.bytes / 1024, entries.size(), totalBytes / 1024);
+    }
+
+    /**
+     * Newest checkpoint at or before the given step, or null
+     */
+    public Checkpoint floor(int step) {
+        Checkpoint best = null;
+        for (Checkpoint checkpoint : entries) {
+            if (checkpoint.step > step) break;
+            best = checkpoint;
+        }
+        return best;
+    }
+
+    /**
+     * Drop checkpoints after a rewind target (the timeline is recomputed from there)
+     */
+    public void truncateAfter(int step) {
+        Iterator<Checkpoint> it = entries.descendingIterator();
+        while (it.hasNext()) {
+            Checkpoint checkpoint = it.next();
+            if (checkpoint.step <= step) break;
+            it.remove();
+            delete(checkpoint);
+        }
+        lastTime = entries.isEmpty() ? 0 : entries.peekLast().simTime;
+    }
+
+    /**
+     * Delete all checkpoints (disconnect or reset)
+     */
+    public void clear() {
+        while (!entries.isEmpty()) {
+            delete(entries.pollFirst());
+        }
+        lastTime = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void delete(Checkpoint checkpoint) {
+        totalBytes -= checkpoint.bytes;
+        if (!checkpoint.file.delete()) {
+            logger.debug("Could not delete checkpoint {}", checkpoint.file);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Uniform-grid spatial index over the lane segments of a RoadGeometryStore.
+ * Every cell lists the lanes that have a segment whose bounding box touches it, in one packed
+ * int array (cell offsets + lane numbers), so a viewport query costs time proportional to the
+ * visible cells and lanes rather than to the network size. Immutable and thread-safe once built.
+ */
+public final class LaneGridIndex {
+    private static final int TARGET_LANES_PER_CELL = 4;
+    private static final float MIN_CELL_SIZE = 10f; // m
+    private static final int MAX_CELLS_PER_AXIS = 2048;
+
+    private final float originX;
+    private final float originY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final int laneCount;
+    private final int[] cellStart; // Cell -> first entry in cellLanes (length = cells + 1)
+    private final int[] cellLanes; // Lane numbers, grouped by cell
+
+    /**
+     * Build the grid over packed lane polylines (world coordinates)
+     */
+    LaneGridIndex(Rectangle2D.Float bounds, int[] laneOffset, float[] xs, float[] ys) {
+        this.laneCount = laneOffset.length - 1;
+        this.originX = bounds.x;
+        this.originY = bounds.y;
+
+        // 1. Cell size for a few lanes per cell on average, within sane grid dimensions
+        double area = Math.max(1.0, (double) bounds.width * bounds.height);
+        double size = Math.sqrt(area * TARGET_LANES_PER_CELL / Math.max(1, laneCount));
+        size = Math.max(size, Math.max(bounds.width, bounds.height) / MAX_CELLS_PER_AXIS);
+        this.cellSize = (float) Math.max(MIN_CELL_SIZE, size);
+        this.columns = Math.max(1, (int) (bounds.width / cellSize) + 1);
+        this.rows = Math.max(1, (int) (bounds.height / cellSize) + 1);
+        int cells = columns * rows;
+
+        // 2. Count, then fill (CSR); lastLane avoids listing a lane twice in the same cell
+        int[] counts = new int[cells + 1];
+        int[] lastLane = new int[cells];
+        Arrays.fill(lastLane, -1);
+        forEachCell(laneOffset, xs, ys, lastLane, (cell, lane) -> counts[cell]++);
+        this.cellStart = new int[cells + 1];
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] = cellStart[c] + counts[c];
+        }
+        this.cellLanes = new int[cellStart[cells]];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        Arrays.fill(lastLane, -1);
+        forEachCell(laneOffset, xs, ys, lastLane, (cell, lane) -> cellLanes[fill[cell]++] = lane);
+    }
+
+    private interface CellVisitor {
+        void visit(int cell, int lane);
+    }
+
+    private void forEachCell(int[] laneOffset, float[] xs, float[] ys, int[] lastLane, CellVisitor visitor) {
+        for (int lane = 0; lane < laneCount; lane++) {
+            for (int p = laneOffset[lane]; p + 1 < laneOffset[lane + 1]; p++) {
+                int c0 = column(Math.min(xs[p], xs[p + 1]));
+                int c1 = column(Math.max(xs[p], xs[p + 1]));
+                int r0 = row(Math.min(ys[p], ys[p + 1]));
+                int r1 = row(Math.max(ys[p], ys[p + 1]));
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        int cell = r * columns + c;
+                        if (lastLane[cell] == lane) continue;
+                        lastLane[cell] = lane;
+                        visitor.visit(cell, lane);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lanes with a segment near the given world rectangle (Y up), each listed once
+     */
+    public BitSet query(double minX, double minY, double maxX, double maxY) {
+        BitSet lanes = new BitSet(laneCount);
+        if (maxX < originX || maxY < originY
+                || minX > originX + columns * cellSize || minY > originY + rows * cellSize) {
+            return lanes; // Entirely outside the network
+        }
+        int c0 = column(minX), c1 = column(maxX);
+        int r0 = row(minY), r1 = row(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    lanes.set(cellLanes[i]);
+                }
+            }
+        }
+        return lanes;
+    }
+
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - originX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - originY) / cellSize)));
+    }
+}
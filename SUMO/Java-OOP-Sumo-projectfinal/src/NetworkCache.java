@@ -0,0 +1,234 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary cache of a parsed SumoNetwork, stored next to the .net.xml as "&lt;net file&gt;.netcache".
+ * The header records size, mtime and CRC32C of the network file; the body holds the flat tables
+ * (ID dictionaries, lane polylines, junction outlines, TL links) and is read back in one bulk read.
+ * Nothing is memory-mapped, so a stale cache can be replaced right away (Windows refuses to replace
+ * a file while a mapping of it is alive, and mappings are only released by the GC).
+ */
+public class NetworkCache {
+    private static final Logger logger = LogManager.getLogger(NetworkCache.class);
+
+    private static final int MAGIC = 0x534E4331; // "SNC1"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".netcache";
+    private static final int HASH_CHUNK = 1 << 20;  // Read the network file in 1 MB blocks for hashing
+    private static final long MTIME_POSITION = 16;   // Header: magic, version, size, mtime, hash
+    private static final int HEADER_BYTES = 32;
+
+    private NetworkCache() {
+    }
+
+    /**
+     * Cached network for the given file, or null if there is no cache or it is stale
+     */
+    public static SumoNetwork load(File netFile) {
+        File cacheFile = cacheFileFor(netFile);
+        if (!cacheFile.isFile() || cacheFile.length() > Integer.MAX_VALUE) return null;
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            // 1. Header: format and the key of the network file it was built from (checked before reading the body)
+            ByteBuffer header = readFully(channel, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                logger.info("Ignoring network cache with unknown format: {}", cacheFile.getName());
+                return null;
+            }
+            long size = header.getLong();
+            long mtime = header.getLong();
+            long hash = header.getLong();
+            if (size != netFile.length()) return null;
+            boolean touched = mtime != netFile.lastModified();
+            if (touched && hash != hashOf(netFile)) return null; // Touched and changed
+
+            // 2. Body: the same order as written by store()
+            ByteBuffer buffer = readFully(channel, (int) (channel.size() - HEADER_BYTES));
+            RoadGeometryStore roads = RoadGeometryStore.fromArrays(
+                    readStrings(buffer), readStrings(buffer), readInts(buffer), readInts(buffer),
+                    readFloats(buffer), readFloats(buffer), readFloats(buffer), readFloats(buffer));
+            double[] boundary = new double[4];
+            buffer.asDoubleBuffer().get(boundary);
+            buffer.position(buffer.position() + boundary.length * Double.BYTES);
+            SumoNetwork network = new SumoNetwork(roads, boundary,
+                    readStrings(buffer), readFloats(buffer), readFloats(buffer), readInts(buffer),
+                    readFloats(buffer), readFloats(buffer),
+                    readStrings(buffer), readStrings(buffer), readInts(buffer), readStrings(buffer));
+
+            // 3. Touched but unchanged (checkout, copy): record the new mtime so later loads skip the hash
+            if (touched) {
+                updateMtime(cacheFile, netFile.lastModified());
+            }
+            logger.info("Network cache loaded in {} ms: {}", (System.nanoTime() - start) / 1_000_000, cacheFile.getName());
+            return network;
+        } catch (Exception e) {
+            logger.warn("Failed to read network cache {}: {}", cacheFile.getName(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Next length bytes of the channel in a heap buffer, ready to read
+     */
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated network cache");
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Write the cache for a freshly parsed network (temp file + atomic rename, so readers never see partial data)
+     */
+    public static void store(File netFile, SumoNetwork network) {
+        File cacheFile = cacheFileFor(netFile);
+        Path temp = null;
+        try {
+            long mtime = netFile.lastModified();
+            long size = netFile.length();
+            long hash = hashOf(netFile);
+
+            temp = Files.createTempFile(cacheFile.getAbsoluteFile().getParentFile().toPath(), cacheFile.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.writeLong(mtime);
+                out.writeLong(hash);
+
+                RoadGeometryStore roads = network.getRoads();
+                writeStrings(out, roads.edgeIdArray());
+                writeStrings(out, roads.laneIdArray());
+                writeInts(out, roads.laneEdgeArray());
+                writeInts(out, roads.laneOffsetArray());
+                writeFloats(out, roads.xArray());
+                writeFloats(out, roads.yArray());
+                writeFloats(out, roads.laneWidthArray());
+                writeFloats(out, roads.laneSpeedArray());
+                for (double value : network.boundaryArray()) {
+                    out.writeDouble(value);
+                }
+                writeStrings(out, network.junctionIdArray());
+                writeFloats(out, network.junctionXArray());
+                writeFloats(out, network.junctionYArray());
+                writeInts(out, network.junctionOffsetArray());
+                writeFloats(out, network.junctionShapeXArray());
+                writeFloats(out, network.junctionShapeYArray());
+                writeStrings(out, network.tlIdArray());
+                writeStrings(out, network.tlProgramIdArray());
+                writeInts(out, network.tlLinkOffsetArray());
+                writeStrings(out, network.tlLinkLaneArray());
+            }
+            try {
+                Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Network cache written: {} ({} KB)", cacheFile.getName(), cacheFile.length() / 1024);
+        } catch (Exception e) {
+            logger.warn("Failed to write network cache {}: {}", cacheFile.getName(), e.toString());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort cleanup
+                }
+            }
+        }
+    }
+
+    private static void updateMtime(File cacheFile, long mtime) {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES).putLong(0, mtime);
+            channel.write(value, MTIME_POSITION);
+        } catch (IOException e) {
+            logger.warn("Failed to update network cache header {}: {}", cacheFile.getName(), e.toString());
+        }
+    }
+
+    public static File cacheFileFor(File netFile) {
+        return new File(netFile.getAbsoluteFile().getParentFile(), netFile.getName() + SUFFIX);
+    }
+
+    /**
+     * CRC32C over the network file content
+     */
+    private static long hashOf(File netFile) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer block = ByteBuffer.allocate(HASH_CHUNK);
+        try (FileChannel channel = FileChannel.open(netFile.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(block) >= 0) {
+                crc.update(block.flip());
+                block.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.get(bytes, 0, length);
+            values[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer) {
+        float[] values = new float[buffer.getInt()];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Float.BYTES);
+        return values;
+    }
+}
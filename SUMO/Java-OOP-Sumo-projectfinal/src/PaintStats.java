@@ -0,0 +1,52 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Lightweight paint-time instrumentation for the map canvas.
+ * Accumulates the time spent in each render layer and logs the averages every REPORT_FRAMES frames,
+ * so paint cost can be compared before/after a change on the same network.
+ */
+public class PaintStats {
+    private static final Logger logger = LogManager.getLogger(PaintStats.class);
+    private static final int REPORT_FRAMES = 100;
+
+    public static final int ROADS = 0;
+    public static final int SIGNALS = 1;
+    public static final int VEHICLES = 2;
+    private static final String[] LAYER_NAMES = {"roads", "signals", "vehicles"};
+
+    private final long[] layerNanos = new long[LAYER_NAMES.length];
+    private long frameNanos = 0;
+    private int frames = 0;
+
+    /**
+     * Add the time spent in one layer of the current frame
+     */
+    public void addLayer(int layer, long nanos) {
+        layerNanos[layer] += nanos;
+    }
+
+    /**
+     * Close the current frame; logs and resets the averages every REPORT_FRAMES frames
+     */
+    public void endFrame(long nanos) {
+        frameNanos += nanos;
+        frames++;
+        if (frames < REPORT_FRAMES) return;
+
+        if (logger.isDebugEnabled()) {
+            StringBuilder sb = new StringBuilder("Paint time avg over ").append(frames).append(" frames: total ")
+                    .append(String.format("%.3f ms", frameNanos / 1e6 / frames));
+            for (int i = 0; i < LAYER_NAMES.length; i++) {
+                sb.append(", ").append(LAYER_NAMES[i]).append(' ')
+                        .append(String.format("%.3f ms", layerNanos[i] / 1e6 / frames));
+            }
+            logger.debug(sb.toString());
+        }
+        Arrays.fill(layerNanos, 0);
+        frameNanos = 0;
+        frames = 0;
+    }
+}
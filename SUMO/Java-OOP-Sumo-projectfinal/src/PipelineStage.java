@@ -0,0 +1,149 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * One stage of the step pipeline: a worker thread that consumes items from a bounded queue.
+ * The producer (simulation thread) continues with the next step while the worker handles the previous one.
+ * When the queue is full, BLOCK waits for space (lossless), DROP_OLDEST discards the oldest queued item.
+ */
+public class PipelineStage<T> {
+    private static final Logger logger = LogManager.getLogger(PipelineStage.class);
+
+    /**
+     * Behaviour of submit() when the queue is full
+     */
+    public enum Backpressure {
+        BLOCK("Block"),
+        DROP_OLDEST("Drop Oldest");
+
+        private final String label;
+
+        Backpressure(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final String name;
+    private final Consumer<T> handler;
+    private final BlockingQueue<T> queue;
+    private final Object idleLock = new Object();
+    private volatile Backpressure backpressure;
+    private int pending = 0; // Queued + in progress (guarded by idleLock)
+    private long dropped = 0; // Guarded by idleLock
+    private Thread thread;
+
+    public PipelineStage(String name, int capacity, Backpressure backpressure, Consumer<T> handler) {
+        this.name = name;
+        this.handler = handler;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Start the worker thread (idempotent)
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this::loop, name);
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Pipeline stage '{}' started", name);
+    }
+
+    public void setBackpressure(Backpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * Hand an item to the stage. With mustKeep the item is never dropped (it blocks instead),
+     * e.g. for the frame that carries a stop notification.
+     */
+    public void submit(T item, boolean mustKeep) throws InterruptedException {
+        synchronized (idleLock) {
+            pending++;
+        }
+        if (mustKeep || backpressure == Backpressure.BLOCK) {
+            queue.put(item);
+            return;
+        }
+        while (!queue.offer(item)) {
+            if (queue.poll() != null) {
+                synchronized (idleLock) {
+                    pending--;
+                    dropped++;
+                    idleLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until every submitted item has been handled (or dropped)
+     */
+    public void flush() throws InterruptedException {
+        synchronized (idleLock) {
+            while (pending > 0) {
+                idleLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Discard queued items that have not started yet
+     */
+    public void clear() {
+        synchronized (idleLock) {
+            pending -= queue.drainTo(new ArrayList<>());
+            idleLock.notifyAll();
+        }
+    }
+
+    /**
+     * Items discarded by DROP_OLDEST so far
+     */
+    public long getDropped() {
+        synchronized (idleLock) {
+            return dropped;
+        }
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void loop() {
+        while (true) {
+            T item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                handler.accept(item);
+            } catch (Exception e) {
+                logger.error("Pipeline stage '{}' failed: {}", name, e.toString());
+            } finally {
+                synchronized (idleLock) {
+                    pending--;
+                    idleLock.notifyAll();
+                }
+            }
+        }
+        logger.info("Pipeline stage '{}' stopped", name);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Per-stage latency of the step pipeline (step, fetch, queue wait, aggregate, render).
+ * Stages record their duration from any thread; a single reader samples mean and max
+ * since the previous sample, e.g. for the toolbar tooltip or the debug log.
+ */
+public class PipelineStats {
+    public enum Stage {
+        STEP("step"),
+        FETCH("fetch"),
+        QUEUE("queue"),
+        AGGREGATE("aggregate"),
+        RENDER("render");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int STAGES = Stage.values().length;
+
+    private final long[] totalNanos = new long[STAGES];
+    private final long[] maxNanos = new long[STAGES];
+    private final int[] counts = new int[STAGES];
+
+    /**
+     * Add one measured duration of a stage
+     */
+    public synchronized void record(Stage stage, long nanos) {
+        int i = stage.ordinal();
+        totalNanos[i] += nanos;
+        counts[i]++;
+        if (nanos > maxNanos[i]) maxNanos[i] = nanos;
+    }
+
+    /**
+     * "step 1.20/3.40 | fetch ... ms" (mean/max per stage) since the previous sample, then reset
+     */
+    public synchronized String sample() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            int i = stage.ordinal();
+            double mean = counts[i] > 0 ? totalNanos[i] / 1e6 / counts[i] : 0.0;
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format("%s %.2f/%.2f", stage.label, mean, maxNanos[i] / 1e6));
+            totalNanos[i] = 0;
+            maxNanos[i] = 0;
+            counts[i] = 0;
+        }
+        return sb.append(" ms (mean/max)").toString();
+    }
+}
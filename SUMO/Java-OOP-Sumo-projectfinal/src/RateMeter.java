@@ -0,0 +1,45 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe event counter that reports the achieved rate (events per second).
+ * Producers call mark() from any thread; a single reader samples the rate periodically.
+ */
+public class RateMeter {
+    private final AtomicLong count = new AtomicLong();
+    private long lastCount = 0;
+    private long lastSampleNanos = System.nanoTime();
+    private double rate = 0.0;
+
+    /**
+     * Record one event
+     */
+    public void mark() {
+        count.incrementAndGet();
+    }
+
+    /**
+     * Record several events at once (e.g. a batch of simulation steps)
+     */
+    public void mark(long events) {
+        count.addAndGet(events);
+    }
+
+    /**
+     * Events per second since the previous sample (reader thread only)
+     */
+    public synchronized double sample() {
+        long now = System.nanoTime();
+        long current = count.get();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed > 0) {
+            rate = (current - lastCount) * 1e9 / elapsed;
+        }
+        lastCount = current;
+        lastSampleNanos = now;
+        return rate;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+}
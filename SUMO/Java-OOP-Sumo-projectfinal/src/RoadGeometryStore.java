@@ -0,0 +1,291 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.sumo.libtraci.Lane;
+import org.eclipse.sumo.libtraci.TraCIPosition;
+import org.eclipse.sumo.libtraci.TraCIPositionVector;
+import org.eclipse.sumo.libtraci.TraCPositionVector;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Packed, immutable road geometry of the loaded network.
+ * Every lane polyline is stored in contiguous float arrays addressed by lane offsets, together with
+ * the lane widths/speeds and one precomputed Path2D per width bucket, so road rendering needs no TraCI calls.
+ * Paths are in world coordinates with the Y-axis already inverted (screen orientation).
+ * A uniform-grid index over the lane segments allows drawing only the lanes of a viewport, and
+ * simplified zoom bands (RoadLevelOfDetail) are built once the network is loaded, for zoomed-out frames.
+ */
+public final class RoadGeometryStore {
+    private static final Logger logger = LogManager.getLogger(RoadGeometryStore.class);
+
+    public static final RoadGeometryStore EMPTY = new Builder().build();
+
+    private static final float WIDTH_BUCKET = 0.25f; // Lane widths are grouped in 25 cm buckets
+    private static final int TRACI_CHUNK_LANES = 500; // Lanes fetched per TraCI lock hold / published chunk
+
+    /**
+     * Receives partial geometry while a network is being loaded
+     */
+    public interface ChunkListener {
+        void onChunk(RoadGeometryStore chunk, double progress);
+    }
+
+    private final String[] edgeIds;    // Edge dictionary
+    private final String[] laneIds;    // Lane dictionary (index = lane number)
+    private final int[] laneEdge;      // Lane number -> edge number
+    private final int[] laneOffset;    // Lane number -> first point (length = lane count + 1)
+    private final float[] xs;          // Packed point X coordinates (world)
+    private final float[] ys;          // Packed point Y coordinates (world)
+    private final float[] laneWidth;   // Lane width (m)
+    private final float[] laneSpeed;   // Lane speed limit (m/s)
+    private final float[] bucketWidth; // Representative width of every bucket (m)
+    private final Path2D.Float[] bucketPaths; // All lanes of one width bucket as a single path
+    private final int[] laneBucket;    // Lane number -> width bucket (-1 = fewer than 2 points)
+    private final LaneGridIndex grid;  // Spatial index over lane segments (world coordinates)
+    private volatile RoadGeometryStore[] lodBands; // Simplified zoom bands (null until built)
+    private final Rectangle2D.Float bounds;   // World bounding box of all points
+    private final Map<String, Integer> laneNumbers = new HashMap<>(); // Lane ID -> lane number
+
+    private RoadGeometryStore(String[] edgeIds, String[] laneIds, int[] laneEdge, int[] laneOffset,
+                              float[] xs, float[] ys, float[] laneWidth, float[] laneSpeed) {
+        this.edgeIds = edgeIds;
+        this.laneIds = laneIds;
+        this.laneEdge = laneEdge;
+        this.laneOffset = laneOffset;
+        this.xs = xs;
+        this.ys = ys;
+        this.laneWidth = laneWidth;
+        this.laneSpeed = laneSpeed;
+        for (int lane = 0; lane < laneIds.length; lane++) {
+            laneNumbers.put(laneIds[lane], lane);
+        }
+
+        // Group lanes by quantized width and append them to one path per bucket
+        TreeMap<Integer, Path2D.Float> buckets = new TreeMap<>();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int lane = 0; lane < laneIds.length; lane++) {
+            int from = laneOffset[lane];
+            int to = laneOffset[lane + 1];
+            if (to - from < 2) continue;
+
+            int key = Math.round(laneWidth[lane] / WIDTH_BUCKET);
+            Path2D.Float path = buckets.computeIfAbsent(key, k -> new Path2D.Float());
+            path.moveTo(xs[from], -ys[from]);
+            for (int p = from + 1; p < to; p++) {
+                path.lineTo(xs[p], -ys[p]);
+            }
+            for (int p = from; p < to; p++) {
+                minX = Math.min(minX, xs[p]);
+                maxX = Math.max(maxX, xs[p]);
+                minY = Math.min(minY, ys[p]);
+                maxY = Math.max(maxY, ys[p]);
+            }
+        }
+        this.bucketWidth = new float[buckets.size()];
+        this.bucketPaths = new Path2D.Float[buckets.size()];
+        int b = 0;
+        for (Map.Entry<Integer, Path2D.Float> entry : buckets.entrySet()) {
+            bucketWidth[b] = entry.getKey() * WIDTH_BUCKET;
+            bucketPaths[b] = entry.getValue();
+            b++;
+        }
+        this.bounds = laneIds.length == 0 ? new Rectangle2D.Float()
+                : new Rectangle2D.Float(minX, minY, maxX - minX, maxY - minY);
+
+        // Lane -> bucket, for drawing a subset of lanes with the bucket strokes
+        Map<Integer, Integer> bucketOfKey = new HashMap<>();
+        for (Integer key : buckets.keySet()) {
+            bucketOfKey.put(key, bucketOfKey.size());
+        }
+        this.laneBucket = new int[laneIds.length];
+        for (int lane = 0; lane < laneIds.length; lane++) {
+            laneBucket[lane] = laneOffset[lane + 1] - laneOffset[lane] < 2 ? -1
+                    : bucketOfKey.get(Math.round(laneWidth[lane] / WIDTH_BUCKET));
+        }
+        this.grid = new LaneGridIndex(bounds, laneOffset, xs, ys);
+    }
+
+    /**
+     * Load every lane shape over TraCI once (after connect) and pack it.
+     * Lanes are fetched in chunks, each under the TraCI lock, so the simulation can keep stepping
+     * in between; every chunk is handed to the listener as soon as it is packed.
+     * The SWIG position vectors are released as soon as they are copied.
+     */
+    public static RoadGeometryStore loadFromTraci(Object traciLock, ChunkListener listener) {
+        String[] laneIdList;
+        synchronized (traciLock) {
+            laneIdList = Lane.getIDList().toArray(new String[0]);
+        }
+        Builder builder = new Builder();
+        for (int from = 0; from < laneIdList.length; from += TRACI_CHUNK_LANES) {
+            int to = Math.min(laneIdList.length, from + TRACI_CHUNK_LANES);
+            Builder chunk = new Builder();
+            synchronized (traciLock) {
+                for (int l = from; l < to; l++) {
+                    addLaneFromTraci(laneIdList[l], builder, chunk);
+                }
+            }
+            listener.onChunk(chunk.build(), (double) to / laneIdList.length);
+        }
+        RoadGeometryStore store = builder.build();
+        logger.info("Road geometry packed: {} edges, {} lanes, {} points, {} width buckets",
+                store.getEdgeCount(), store.getLaneCount(), store.getPointCount(), store.getBucketCount());
+        return store;
+    }
+
+    /**
+     * Wrap already packed tables (used by the binary network cache); arrays are taken over, not copied
+     */
+    static RoadGeometryStore fromArrays(String[] edgeIds, String[] laneIds, int[] laneEdge, int[] laneOffset,
+                                        float[] xs, float[] ys, float[] laneWidth, float[] laneSpeed) {
+        return new RoadGeometryStore(edgeIds, laneIds, laneEdge, laneOffset, xs, ys, laneWidth, laneSpeed);
+    }
+
+    private static void addLaneFromTraci(String laneId, Builder builder, Builder chunk) {
+        TraCIPositionVector shape = null;
+        try {
+            shape = Lane.getShape(laneId);
+            TraCPositionVector points = shape.getValue();
+            int n = points.size();
+            float[] px = new float[n];
+            float[] py = new float[n];
+            for (int i = 0; i < n; i++) {
+                TraCIPosition pos = points.get(i);
+                px[i] = (float) pos.getX();
+                py[i] = (float) pos.getY();
+            }
+            String edgeId = Lane.getEdgeID(laneId);
+            float width = (float) Lane.getWidth(laneId);
+            float speed = (float) Lane.getMaxSpeed(laneId);
+            builder.addLane(edgeId, laneId, width, speed, px, py);
+            chunk.addLane(edgeId, laneId, width, speed, px, py);
+        } catch (Exception e) {
+            logger.warn("Failed to get lane shape: lane={}, msg={}", laneId, e.getMessage());
+        } finally {
+            if (shape != null) shape.delete(); // Free the native copy right away
+        }
+    }
+
+    public int getEdgeCount() { return edgeIds.length; }
+    public int getLaneCount() { return laneIds.length; }
+    public int getPointCount() { return xs.length; }
+    public String getEdgeId(int edge) { return edgeIds[edge]; }
+    public String getLaneId(int lane) { return laneIds[lane]; }
+    public int getLaneIndex(String laneId) { return laneNumbers.getOrDefault(laneId, -1); }
+    public int getLaneEdge(int lane) { return laneEdge[lane]; }
+    public int getLaneStart(int lane) { return laneOffset[lane]; }
+    public int getLaneEnd(int lane) { return laneOffset[lane + 1]; }
+    public float getX(int point) { return xs[point]; }
+    public float getY(int point) { return ys[point]; }
+    public float getLaneWidth(int lane) { return laneWidth[lane]; }
+    public float getLaneSpeed(int lane) { return laneSpeed[lane]; }
+    public int getBucketCount() { return bucketPaths.length; }
+    public float getBucketWidth(int bucket) { return bucketWidth[bucket]; }
+    public Path2D.Float getBucketPath(int bucket) { return bucketPaths[bucket]; }
+    public Rectangle2D.Float getBounds() { return bounds; }
+    public int getLaneBucket(int lane) { return laneBucket[lane]; }
+    public LaneGridIndex getGrid() { return grid; }
+
+    /**
+     * Geometry to draw at the given pixels per meter: the simplified zoom band once built, else this store
+     */
+    public RoadGeometryStore forPixelsPerMeter(double pixelsPerMeter) {
+        RoadGeometryStore[] bands = lodBands;
+        int band = RoadLevelOfDetail.bandFor(pixelsPerMeter);
+        return bands == null || band < 0 ? this : bands[band];
+    }
+
+    /**
+     * Build the simplified zoom bands (on the loading thread, after the network is complete;
+     * rendering threads never build them)
+     */
+    public void buildLevelsOfDetail() {
+        if (lodBands != null) return;
+        RoadGeometryStore[] bands = new RoadGeometryStore[RoadLevelOfDetail.getBandCount()];
+        for (int band = 0; band < bands.length; band++) {
+            bands[band] = RoadLevelOfDetail.simplify(this, band);
+        }
+        lodBands = bands;
+    }
+
+    // Raw tables for the binary network cache
+    String[] edgeIdArray() { return edgeIds; }
+    String[] laneIdArray() { return laneIds; }
+    int[] laneEdgeArray() { return laneEdge; }
+    int[] laneOffsetArray() { return laneOffset; }
+    float[] xArray() { return xs; }
+    float[] yArray() { return ys; }
+    float[] laneWidthArray() { return laneWidth; }
+    float[] laneSpeedArray() { return laneSpeed; }
+
+    /**
+     * Accumulates lanes into growable primitive arrays, then freezes them into a store
+     */
+    public static final class Builder {
+        private final Map<String, Integer> edgeNumbers = new LinkedHashMap<>();
+        private final List<String> laneIds = new ArrayList<>();
+        private int[] laneEdge = new int[256];
+        private int[] laneOffset = new int[257];
+        private float[] laneWidth = new float[256];
+        private float[] laneSpeed = new float[256];
+        private float[] xs = new float[1024];
+        private float[] ys = new float[1024];
+        private int points = 0;
+
+        /**
+         * Append one lane polyline (world coordinates)
+         */
+        public Builder addLane(String edgeId, String laneId, float width, float speed, float[] px, float[] py) {
+            int lane = laneIds.size();
+            if (lane + 1 >= laneOffset.length) {
+                int capacity = laneEdge.length * 2;
+                laneEdge = Arrays.copyOf(laneEdge, capacity);
+                laneOffset = Arrays.copyOf(laneOffset, capacity + 1);
+                laneWidth = Arrays.copyOf(laneWidth, capacity);
+                laneSpeed = Arrays.copyOf(laneSpeed, capacity);
+            }
+            int n = Math.min(px.length, py.length);
+            if (points + n > xs.length) {
+                int capacity = Math.max(xs.length * 2, points + n);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+            System.arraycopy(px, 0, xs, points, n);
+            System.arraycopy(py, 0, ys, points, n);
+
+            laneIds.add(laneId);
+            laneEdge[lane] = edgeNumbers.computeIfAbsent(edgeId, k -> edgeNumbers.size());
+            laneWidth[lane] = width;
+            laneSpeed[lane] = speed;
+            laneOffset[lane] = points;
+            points += n;
+            laneOffset[lane + 1] = points;
+            return this;
+        }
+
+        public int getLaneCount() {
+            return laneIds.size();
+        }
+
+        public RoadGeometryStore build() {
+            int lanes = laneIds.size();
+            return new RoadGeometryStore(
+                    edgeNumbers.keySet().toArray(new String[0]),
+                    laneIds.toArray(new String[0]),
+                    Arrays.copyOf(laneEdge, lanes),
+                    Arrays.copyOf(laneOffset, lanes + 1),
+                    Arrays.copyOf(xs, points),
+                    Arrays.copyOf(ys, points),
+                    Arrays.copyOf(laneWidth, lanes),
+                    Arrays.copyOf(laneSpeed, lanes));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offscreen raster of the static road layer for the current zoom level.
+ * The whole network is rendered once per zoom level into a BufferedImage on a background thread
+ * (like the tiles of RoadTilePyramid); the EDT uploads it into a VolatileImage (if accelerated
+ * images are available) and only blits it, so panning just moves the blit position.
+ * While the raster of a new zoom level is being rendered, the previous raster is shown stretched;
+ * without one, draw() returns false and the caller draws another fallback.
+ * draw() and flush() run on the EDT; rendering runs on the raster thread.
+ */
+public class RoadLayerCache {
+    private static final Logger logger = LogManager.getLogger(RoadLayerCache.class);
+
+    private static final long MAX_PIXELS = 4096L * 4096L; // Larger rasters fall back to the tile pyramid
+    private static final int MAX_RESTORE_ATTEMPTS = 3;
+
+    /**
+     * A rendered raster and the key it was rendered for; image pixel = pixelsPerMeter * (x, -y) + origin
+     */
+    private static final class Raster {
+        final RoadGeometryStore geometry;
+        final float mapScale;
+        final double originX;
+        final double originY;
+        final BufferedImage image;
+
+        Raster(RoadGeometryStore geometry, float mapScale, double originX, double originY, BufferedImage image) {
+            this.geometry = geometry;
+            this.mapScale = mapScale;
+            this.originX = originX;
+            this.originY = originY;
+            this.image = image;
+        }
+
+        boolean matches(RoadGeometryStore otherGeometry, float otherScale) {
+            return geometry == otherGeometry && mapScale == otherScale;
+        }
+    }
+
+    private final Color roadColor;
+    private final Runnable onRasterReady; // Repaint request (called from the raster thread)
+    private final ExecutorService renderer;
+
+    // EDT only: raster being shown and its accelerated copy
+    private Raster current;
+    private VolatileImage volatileImage;
+    private Raster uploaded; // Raster whose pixels volatileImage holds
+    private boolean volatileSupported = true;
+
+    // Guarded by this: latest requested key, finished raster not yet picked up by the EDT
+    private RoadGeometryStore requestedGeometry;
+    private float requestedScale;
+    private Raster finished;
+    private int generation = 0; // Incremented by flush(), so late results are dropped
+    private int renders = 0;
+
+    public RoadLayerCache(Color roadColor, Runnable onRasterReady) {
+        this.roadColor = roadColor;
+        this.onRasterReady = onRasterReady;
+        this.renderer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "road-raster-renderer");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1); // Stay behind the EDT and the simulation thread
+            return t;
+        });
+    }
+
+    /**
+     * Draw the road layer by blitting the raster of this zoom level; requests it in the background
+     * if the key changed. offsetX/Y is the screen position of the world origin and mapScale² the
+     * pixels per meter, as in drawMap. Returns false if the raster would be too large, or if neither
+     * it nor an earlier raster of the network is available yet, so the caller draws the layer another way.
+     */
+    public boolean draw(Graphics2D g, RoadGeometryStore geometry, float mapScale, double offsetX, double offsetY) {
+        // 1. Raster size for the network bounds at this zoom (pixels per meter = mapScale²)
+        double pixelsPerMeter = (double) mapScale * mapScale;
+        Rectangle2D.Float bounds = geometry.getBounds();
+        int pad = (int) Math.ceil(maxLaneWidth(geometry) * pixelsPerMeter / 2) + 2; // Room for stroke width
+        int width = (int) Math.ceil(bounds.width * pixelsPerMeter) + 2 * pad;
+        int height = (int) Math.ceil(bounds.height * pixelsPerMeter) + 2 * pad;
+        if ((long) width * height > MAX_PIXELS) {
+            flush();
+            return false;
+        }
+
+        // 2. Pick up a finished raster, or request the one for this key
+        synchronized (this) {
+            if (finished != null) {
+                current = finished;
+                finished = null;
+            }
+        }
+        if (current == null || !current.matches(geometry, mapScale)) {
+            request(geometry, mapScale, width, height,
+                    pad - bounds.x * pixelsPerMeter, pad + (bounds.y + bounds.height) * pixelsPerMeter);
+            if (current == null || current.geometry != geometry) return false;
+
+            // Meanwhile: the previous zoom level's raster, stretched to this one
+            double ratio = pixelsPerMeter / ((double) current.mapScale * current.mapScale);
+            int x = (int) Math.round(offsetX - current.originX * ratio);
+            int y = (int) Math.round(offsetY - current.originY * ratio);
+            g.drawImage(current.image, x, y, (int) Math.round(current.image.getWidth() * ratio),
+                    (int) Math.round(current.image.getHeight() * ratio), null);
+            return true;
+        }
+
+        // 3. Blit, through the accelerated copy when available (validated before every blit)
+        int x = (int) Math.round(offsetX - current.originX);
+        int y = (int) Math.round(offsetY - current.originY);
+        if (volatileSupported && blitVolatile(g, x, y)) return true;
+        g.drawImage(current.image, x, y, null);
+        return true;
+    }
+
+    /**
+     * Release the rasters (disconnect); the next draw renders again
+     */
+    public void flush() {
+        synchronized (this) {
+            generation++;
+            requestedGeometry = null;
+            finished = null;
+        }
+        if (volatileImage != null) volatileImage.flush();
+        if (current != null) current.image.flush();
+        volatileImage = null;
+        uploaded = null;
+        current = null;
+    }
+
+    private synchronized void request(RoadGeometryStore geometry, float mapScale, int width, int height,
+                                      double originX, double originY) {
+        if (requestedGeometry == geometry && requestedScale == mapScale) return; // Already queued or running
+        requestedGeometry = geometry;
+        requestedScale = mapScale;
+        int requestGeneration = generation;
+        renderer.execute(() -> render(geometry, mapScale, width, height, originX, originY, requestGeneration));
+    }
+
+    /**
+     * Raster thread: render the whole network unless the request was superseded meanwhile
+     */
+    private void render(RoadGeometryStore geometry, float mapScale, int width, int height,
+                        double originX, double originY, int requestGeneration) {
+        synchronized (this) {
+            if (requestGeneration != generation || requestedGeometry != geometry || requestedScale != mapScale) {
+                return; // A newer zoom level was requested before this one started
+            }
+        }
+
+        long start = System.nanoTime();
+        BufferedImage image;
+        try {
+            // Transparent background: the canvas shows through between the roads
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D ig = image.createGraphics();
+            try {
+                double pixelsPerMeter = (double) mapScale * mapScale;
+                ig.translate(originX, originY);
+                ig.scale(pixelsPerMeter, pixelsPerMeter);
+                RoadPainter.paint(ig, geometry, mapScale, roadColor, null);
+            } finally {
+                ig.dispose();
+            }
+        } catch (Exception | OutOfMemoryError e) {
+            // The key stays requested, so this zoom level is not retried every frame
+            logger.warn("Road raster at zoom {} failed: {}", mapScale, e.toString());
+            return;
+        }
+
+        synchronized (this) {
+            if (requestGeneration != generation) return; // Flushed meanwhile
+            finished = new Raster(geometry, mapScale, originX, originY, image);
+            renders++;
+        }
+        logger.debug("Road raster #{} rendered: {}x{} px at zoom {} in {} ms", renders, width, height,
+                mapScale, String.format("%.1f", (System.nanoTime() - start) / 1e6));
+        onRasterReady.run();
+    }
+
+    /**
+     * Blit the current raster through the VolatileImage, re-uploading it if the surface was lost;
+     * false if accelerated images are not available
+     */
+    private boolean blitVolatile(Graphics2D g, int x, int y) {
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        int width = current.image.getWidth();
+        int height = current.image.getHeight();
+        for (int attempt = 0; attempt < MAX_RESTORE_ATTEMPTS; attempt++) {
+            boolean upload = uploaded != current;
+            if (volatileImage == null || volatileImage.getWidth() != width || volatileImage.getHeight() != height) {
+                if (!createVolatile(gc, width, height)) return false;
+                upload = true;
+            } else {
+                int status = volatileImage.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (!createVolatile(gc, width, height)) return false;
+                    upload = true;
+                } else if (status == VolatileImage.IMAGE_RESTORED) {
+                    upload = true;
+                }
+            }
+            if (upload) {
+                Graphics2D vg = volatileImage.createGraphics();
+                try {
+                    vg.setComposite(AlphaComposite.Src); // Replace, including the transparent pixels
+                    vg.drawImage(current.image, 0, 0, null);
+                } finally {
+                    vg.dispose();
+                }
+                uploaded = current;
+            }
+            g.drawImage(volatileImage, x, y, null);
+            if (!volatileImage.contentsLost()) return true;
+            uploaded = null;
+        }
+        return false;
+    }
+
+    private boolean createVolatile(GraphicsConfiguration gc, int width, int height) {
+        if (volatileImage != null) volatileImage.flush();
+        uploaded = null;
+        try {
+            volatileImage = gc.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+        } catch (Exception e) {
+            volatileImage = null;
+        }
+        if (volatileImage == null) {
+            volatileSupported = false;
+            logger.info("Accelerated road raster not available, blitting the BufferedImage");
+            return false;
+        }
+        return true;
+    }
+
+    private static float maxLaneWidth(RoadGeometryStore geometry) {
+        float max = 0;
+        for (int b = 0; b < geometry.getBucketCount(); b++) {
+            max = Math.max(max, geometry.getBucketWidth(b));
+        }
+        return max;
+    }
+}
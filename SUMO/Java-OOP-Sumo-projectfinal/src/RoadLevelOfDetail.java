@@ -0,0 +1,187 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Zoom bands of simplified road geometry for zoomed-out rendering.
+ * Below FULL_DETAIL_PPM pixels per meter, every edge is reduced to one centerline (width = sum of its
+ * lane widths), simplified with Douglas-Peucker to half a pixel at the band's finest zoom, and
+ * internal junction edges and edges smaller than MIN_EDGE_PIXELS are dropped.
+ * Each band is itself a RoadGeometryStore (with its own width buckets and grid index).
+ */
+public final class RoadLevelOfDetail {
+    private static final Logger logger = LogManager.getLogger(RoadLevelOfDetail.class);
+
+    public static final double FULL_DETAIL_PPM = 0.5; // From here on (mapScale ~0.7) every lane is drawn
+    // Finest pixels-per-meter of each simplified band, coarser bands last
+    private static final double[] BAND_MAX_PPM = {FULL_DETAIL_PPM, 0.1, 0.02};
+    private static final double TOLERANCE_PIXELS = 0.5;
+    private static final double MIN_EDGE_PIXELS = 2.0;
+
+    private RoadLevelOfDetail() {
+    }
+
+    public static int getBandCount() {
+        return BAND_MAX_PPM.length;
+    }
+
+    /**
+     * Band for a zoom level: -1 = full detail, else the index of the simplified band
+     */
+    public static int bandFor(double pixelsPerMeter) {
+        int band = -1;
+        for (int b = 0; b < BAND_MAX_PPM.length; b++) {
+            if (pixelsPerMeter < BAND_MAX_PPM[b]) band = b;
+        }
+        return band;
+    }
+
+    /**
+     * Build the simplified geometry of a band from the full lane geometry
+     */
+    public static RoadGeometryStore simplify(RoadGeometryStore full, int band) {
+        long start = System.nanoTime();
+        double maxPpm = BAND_MAX_PPM[band];
+        double tolerance = TOLERANCE_PIXELS / maxPpm;
+        double minExtent = MIN_EDGE_PIXELS / maxPpm;
+
+        // 1. Lanes grouped by edge, in lane order
+        List<int[]> edgeLanes = groupLanesByEdge(full);
+
+        RoadGeometryStore.Builder builder = new RoadGeometryStore.Builder();
+        for (int[] lanes : edgeLanes) {
+            String edgeId = full.getEdgeId(full.getLaneEdge(lanes[0]));
+            if (edgeId.startsWith(":")) continue; // Internal junction edges vanish at this zoom
+
+            // 2. One centerline per edge, as wide as all its lanes together
+            float[][] line = centerline(full, lanes);
+            if (line[0].length < 2 || extent(line) < minExtent) continue;
+            float width = 0;
+            float speed = 0;
+            for (int lane : lanes) {
+                width += full.getLaneWidth(lane);
+                speed = Math.max(speed, full.getLaneSpeed(lane));
+            }
+
+            // 3. Polyline simplification to sub-pixel error
+            float[][] simplified = douglasPeucker(line[0], line[1], tolerance);
+            builder.addLane(edgeId, edgeId + "_center", width, speed, simplified[0], simplified[1]);
+        }
+        RoadGeometryStore store = builder.build();
+        logger.debug("Road LOD band {} (< {} px/m): {} of {} points, {} edges, in {} ms", band, maxPpm,
+                store.getPointCount(), full.getPointCount(), store.getLaneCount(),
+                String.format("%.1f", (System.nanoTime() - start) / 1e6));
+        return store;
+    }
+
+    private static List<int[]> groupLanesByEdge(RoadGeometryStore full) {
+        int[] counts = new int[full.getEdgeCount()];
+        for (int lane = 0; lane < full.getLaneCount(); lane++) {
+            counts[full.getLaneEdge(lane)]++;
+        }
+        int[][] lanesOfEdge = new int[counts.length][];
+        for (int edge = 0; edge < counts.length; edge++) {
+            lanesOfEdge[edge] = new int[counts[edge]];
+            counts[edge] = 0;
+        }
+        for (int lane = 0; lane < full.getLaneCount(); lane++) {
+            int edge = full.getLaneEdge(lane);
+            lanesOfEdge[edge][counts[edge]++] = lane;
+        }
+        List<int[]> groups = new ArrayList<>();
+        for (int[] lanes : lanesOfEdge) {
+            if (lanes.length > 0) groups.add(lanes);
+        }
+        return groups;
+    }
+
+    /**
+     * Mean of the outermost lanes if they are sampled alike, else the middle lane
+     */
+    private static float[][] centerline(RoadGeometryStore full, int[] lanes) {
+        int first = lanes[0];
+        int last = lanes[lanes.length - 1];
+        int n = full.getLaneEnd(first) - full.getLaneStart(first);
+        if (n != full.getLaneEnd(last) - full.getLaneStart(last)) {
+            first = last = lanes[lanes.length / 2];
+        }
+        float[] xs = new float[n];
+        float[] ys = new float[n];
+        int a = full.getLaneStart(first);
+        int b = full.getLaneStart(last);
+        for (int i = 0; i < n; i++) {
+            xs[i] = (full.getX(a + i) + full.getX(b + i)) / 2;
+            ys[i] = (full.getY(a + i) + full.getY(b + i)) / 2;
+        }
+        return new float[][]{xs, ys};
+    }
+
+    private static double extent(float[][] line) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < line[0].length; i++) {
+            minX = Math.min(minX, line[0][i]);
+            maxX = Math.max(maxX, line[0][i]);
+            minY = Math.min(minY, line[1][i]);
+            maxY = Math.max(maxY, line[1][i]);
+        }
+        return Math.max(maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Douglas-Peucker with an explicit stack; the end points are always kept
+     */
+    static float[][] douglasPeucker(float[] xs, float[] ys, double tolerance) {
+        int n = xs.length;
+        if (n <= 2) return new float[][]{xs, ys};
+        boolean[] keep = new boolean[n];
+        keep[0] = keep[n - 1] = true;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        double tolerance2 = tolerance * tolerance;
+        while (top > 0) {
+            int to = stack[--top];
+            int from = stack[--top];
+            int farthest = -1;
+            double max2 = tolerance2;
+            for (int i = from + 1; i < to; i++) {
+                double d2 = segmentDistance2(xs[i], ys[i], xs[from], ys[from], xs[to], ys[to]);
+                if (d2 > max2) {
+                    max2 = d2;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) continue;
+            keep[farthest] = true;
+            stack[top++] = from;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = to;
+        }
+
+        int kept = 0;
+        float[] outX = new float[n];
+        float[] outY = new float[n];
+        for (int i = 0; i < n; i++) {
+            if (!keep[i]) continue;
+            outX[kept] = xs[i];
+            outY[kept] = ys[i];
+            kept++;
+        }
+        return new float[][]{Arrays.copyOf(outX, kept), Arrays.copyOf(outY, kept)};
+    }
+
+    private static double segmentDistance2(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 > 0 ? Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / len2)) : 0;
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
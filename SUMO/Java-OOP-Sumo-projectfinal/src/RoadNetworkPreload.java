@@ -0,0 +1,73 @@
+import java.util.Arrays;
+
+/**
+ * Progressive road-geometry state shared between the background loader and the map renderer.
+ * The loader publishes immutable chunks as they become available; the renderer draws whatever
+ * has been published so far. Every load is tagged with a generation, so a loader that outlives
+ * its connection cannot publish into the next one.
+ */
+public class RoadNetworkPreload {
+    private static final RoadGeometryStore[] NO_CHUNKS = new RoadGeometryStore[0];
+
+    private volatile RoadGeometryStore[] chunks = NO_CHUNKS; // Copy-on-publish, read lock-free by the EDT
+    private volatile double progress = 0.0;                  // 0..1
+    private volatile boolean complete = false;
+    private int generation = 0;
+
+    /**
+     * Clear the published geometry and start a new load; returns its generation
+     */
+    public synchronized int begin() {
+        reset();
+        return generation;
+    }
+
+    /**
+     * Drop everything and invalidate the running load (disconnect)
+     */
+    public synchronized void reset() {
+        generation++;
+        chunks = NO_CHUNKS;
+        progress = 0.0;
+        complete = false;
+    }
+
+    /**
+     * Append one loaded chunk; ignored if the load has been superseded
+     */
+    public synchronized void publish(int loadGeneration, RoadGeometryStore chunk, double loadProgress) {
+        if (loadGeneration != generation || complete) return;
+        RoadGeometryStore[] next = Arrays.copyOf(chunks, chunks.length + 1);
+        next[chunks.length] = chunk;
+        chunks = next;
+        progress = Math.min(1.0, loadProgress);
+    }
+
+    /**
+     * Replace the chunks by the complete geometry
+     */
+    public synchronized void complete(int loadGeneration, RoadGeometryStore geometry) {
+        if (loadGeneration != generation) return;
+        chunks = new RoadGeometryStore[]{geometry};
+        progress = 1.0;
+        complete = true;
+    }
+
+    /**
+     * Whether the given load is still the active one (not reset by a disconnect)
+     */
+    public synchronized boolean isCurrent(int loadGeneration) {
+        return loadGeneration == generation;
+    }
+
+    public RoadGeometryStore[] getChunks() { return chunks; }
+    public double getProgress() { return progress; }
+    public boolean isComplete() { return complete; }
+
+    /**
+     * The complete geometry, or null while loading
+     */
+    public RoadGeometryStore getGeometry() {
+        return complete ? chunks[0] : null; // complete is written after chunks
+    }
+}
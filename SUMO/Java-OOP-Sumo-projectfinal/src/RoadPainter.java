@@ -0,0 +1,76 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
+
+/**
+ * Strokes the static road geometry, shared by the map canvas, the road raster and the map tiles.
+ * The Graphics2D must map world meters (Y-axis inverted, as stored) to device pixels, i.e. be
+ * scaled by zoom² (pixels per meter). Lane widths keep the map's original formula: at least one
+ * zoom-scaled unit wide, i.e. max(width * zoom, 1) * zoom pixels (thinner than 1 pixel below zoom 1).
+ * Zoomed out, the simplified zoom band of the geometry is drawn instead of every lane; with a
+ * visible world area, only the lanes found in it by the grid index are stroked.
+ */
+public final class RoadPainter {
+    private static final double HAIRLINE_PIXELS = 2.0;
+
+    private RoadPainter() {
+    }
+
+    /**
+     * Stroke the lanes inside visibleWorld (world coordinates, Y up; null = the whole network)
+     */
+    public static void paint(Graphics2D g, RoadGeometryStore geometry, double zoom, Color color,
+                             Rectangle2D visibleWorld) {
+        geometry = geometry.forPixelsPerMeter(zoom * zoom);
+        g.setColor(color);
+        Path2D.Float[] paths = null;
+        if (visibleWorld != null && !visibleWorld.contains(geometry.getBounds())) {
+            paths = visiblePaths(geometry, visibleWorld);
+        }
+        for (int b = 0; b < geometry.getBucketCount(); b++) {
+            Path2D.Float path = paths != null ? paths[b] : geometry.getBucketPath(b);
+            if (path == null) continue;
+            // Lane width in zoom-scaled units, at least one unit (= zoom pixels on the device)
+            float strokeWidth = (float) (Math.max(geometry.getBucketWidth(b) * zoom, 1.0) / zoom);
+            // Round caps/joins are invisible on hairlines but cost extra geometry per segment
+            boolean hairline = strokeWidth * zoom * zoom < HAIRLINE_PIXELS;
+            g.setStroke(hairline
+                    ? new BasicStroke(strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL)
+                    : new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.draw(path);
+        }
+    }
+
+    /**
+     * Per-bucket paths of the lanes near the visible area, or null if most lanes are visible anyway
+     * (the prebuilt bucket paths are cheaper then)
+     */
+    private static Path2D.Float[] visiblePaths(RoadGeometryStore geometry, Rectangle2D visibleWorld) {
+        // Widen by the widest lane, so lanes just outside still show their stroke edge
+        double margin = 0;
+        for (int b = 0; b < geometry.getBucketCount(); b++) {
+            margin = Math.max(margin, geometry.getBucketWidth(b));
+        }
+        BitSet lanes = geometry.getGrid().query(visibleWorld.getMinX() - margin, visibleWorld.getMinY() - margin,
+                visibleWorld.getMaxX() + margin, visibleWorld.getMaxY() + margin);
+        if (lanes.cardinality() > geometry.getLaneCount() / 2) return null;
+
+        Path2D.Float[] paths = new Path2D.Float[geometry.getBucketCount()];
+        for (int lane = lanes.nextSetBit(0); lane >= 0; lane = lanes.nextSetBit(lane + 1)) {
+            int bucket = geometry.getLaneBucket(lane);
+            if (bucket < 0) continue;
+            Path2D.Float path = paths[bucket];
+            if (path == null) path = paths[bucket] = new Path2D.Float();
+
+            int from = geometry.getLaneStart(lane);
+            path.moveTo(geometry.getX(from), -geometry.getY(from));
+            for (int p = from + 1; p < geometry.getLaneEnd(lane); p++) {
+                path.lineTo(geometry.getX(p), -geometry.getY(p));
+            }
+        }
+        return paths;
+    }
+}
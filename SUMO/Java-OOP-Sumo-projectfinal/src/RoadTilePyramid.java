@@ -0,0 +1,228 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Multi-resolution tile pyramid of the static road layer, for networks whose full raster does not fit
+ * into memory at the current zoom. Level k holds TILE_SIZE² pixel tiles at 2^k pixels per meter; the
+ * canvas draws the level at or just above its resolution, scaled down by at most 2x.
+ * Missing tiles are rendered lazily on a background pool while the nearest cached coarser tile is
+ * shown stretched as a placeholder. Rendered tiles live in an LRU cache bounded by bytes.
+ * draw() and flush() run on the EDT; tile rendering runs on the pool.
+ */
+public class RoadTilePyramid {
+    private static final Logger logger = LogManager.getLogger(RoadTilePyramid.class);
+
+    private static final int TILE_SIZE = 256;
+    private static final long TILE_BYTES = (long) TILE_SIZE * TILE_SIZE * 4; // ARGB
+    private static final long MAX_CACHE_BYTES = 192L << 20;
+    private static final int MIN_LEVEL = -12; // 1 px per 4 km
+    private static final int MAX_LEVEL = 6;   // 64 px per meter
+    private static final int MAX_PLACEHOLDER_LEVELS = 5; // How far up the pyramid a placeholder is searched
+    private static final int MAX_FRAME_AGE = 2; // Queued tiles not requested for this many frames are skipped
+
+    /**
+     * Tile address: pyramid level and tile column/row in that level's pixel grid
+     */
+    private static final class TileKey {
+        final int level;
+        final int column;
+        final int row;
+
+        TileKey(int level, int column, int row) {
+            this.level = level;
+            this.column = column;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) return false;
+            TileKey other = (TileKey) o;
+            return level == other.level && column == other.column && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return (level * 31 + column) * 1_000_003 + row;
+        }
+    }
+
+    private final Color roadColor;
+    private final Runnable onTileReady; // Repaint request (called from pool threads)
+    private final ExecutorService pool;
+
+    // Guarded by this: LRU tile cache, in-flight requests (key -> frame of the last request)
+    private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<TileKey, Long> pending = new HashMap<>();
+    private long cacheBytes = 0;
+    private RoadGeometryStore geometry; // Network the cached tiles belong to
+    private long frame = 0;
+
+    public RoadTilePyramid(Color roadColor, Runnable onTileReady) {
+        this.roadColor = roadColor;
+        this.onTileReady = onTileReady;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "road-tile-renderer");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1); // Stay behind the EDT and the simulation thread
+            return t;
+        });
+    }
+
+    /**
+     * Draw the visible tiles in screen space; offsetX/Y is the screen position of the world origin
+     * and mapScale² the pixels per meter, as in drawMap
+     */
+    public void draw(Graphics2D g, RoadGeometryStore network, float mapScale,
+                     double offsetX, double offsetY, Dimension canvasSize) {
+        double pixelsPerMeter = (double) mapScale * mapScale;
+        int level = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL,
+                (int) Math.ceil(Math.log(pixelsPerMeter) / Math.log(2))));
+        double scale = pixelsPerMeter / Math.scalb(1.0, level); // Level pixels -> screen pixels
+
+        // 1. Visible tile range, limited to the network bounds
+        Rectangle2D.Float bounds = network.getBounds();
+        double levelPpm = Math.scalb(1.0, level);
+        int minColumn = Math.max(floorTile(-offsetX / scale), floorTile(bounds.x * levelPpm));
+        int maxColumn = Math.min(floorTile((canvasSize.width - offsetX) / scale),
+                floorTile((bounds.x + bounds.width) * levelPpm));
+        int minRow = Math.max(floorTile(-offsetY / scale), floorTile(-(bounds.y + bounds.height) * levelPpm));
+        int maxRow = Math.min(floorTile((canvasSize.height - offsetY) / scale), floorTile(-bounds.y * levelPpm));
+
+        synchronized (this) {
+            if (network != geometry) {
+                clear();
+                geometry = network;
+            }
+            frame++;
+        }
+
+        // 2. Sharp tile if cached, else request it and show the nearest coarser tile meanwhile
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int x0 = (int) Math.round(offsetX + column * TILE_SIZE * scale);
+                int y0 = (int) Math.round(offsetY + row * TILE_SIZE * scale);
+                int x1 = (int) Math.round(offsetX + (column + 1) * TILE_SIZE * scale);
+                int y1 = (int) Math.round(offsetY + (row + 1) * TILE_SIZE * scale);
+
+                TileKey key = new TileKey(level, column, row);
+                BufferedImage tile = getOrRequest(key, network);
+                if (tile != null) {
+                    g.drawImage(tile, x0, y0, x1, y1, 0, 0, TILE_SIZE, TILE_SIZE, null);
+                } else {
+                    drawPlaceholder(g, key, x0, y0, x1, y1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop every tile and pending request (disconnect)
+     */
+    public synchronized void flush() {
+        clear();
+        geometry = null;
+    }
+
+    private void drawPlaceholder(Graphics2D g, TileKey key, int x0, int y0, int x1, int y1) {
+        for (int up = 1; up <= MAX_PLACEHOLDER_LEVELS && key.level - up >= MIN_LEVEL; up++) {
+            int factor = 1 << up;
+            TileKey parentKey = new TileKey(key.level - up,
+                    Math.floorDiv(key.column, factor), Math.floorDiv(key.row, factor));
+            BufferedImage parent;
+            synchronized (this) {
+                parent = tiles.get(parentKey);
+            }
+            if (parent == null) continue;
+
+            // The part of the coarser tile that covers this one, stretched by 2^up
+            int size = TILE_SIZE / factor;
+            int sx = (key.column - parentKey.column * factor) * size;
+            int sy = (key.row - parentKey.row * factor) * size;
+            g.drawImage(parent, x0, y0, x1, y1, sx, sy, sx + size, sy + size, null);
+            return;
+        }
+    }
+
+    private synchronized BufferedImage getOrRequest(TileKey key, RoadGeometryStore network) {
+        BufferedImage tile = tiles.get(key);
+        if (tile != null) return tile;
+        if (pending.put(key, frame) == null) {
+            pool.execute(() -> render(key, network));
+        }
+        return null;
+    }
+
+    /**
+     * Pool thread: render one tile unless it was superseded or has left the view
+     */
+    private void render(TileKey key, RoadGeometryStore network) {
+        synchronized (this) {
+            Long requested = pending.get(key);
+            if (network != geometry || requested == null || frame - requested > MAX_FRAME_AGE) {
+                pending.remove(key);
+                return;
+            }
+        }
+
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D tg = tile.createGraphics();
+        try {
+            double levelPpm = Math.scalb(1.0, key.level);
+            tg.translate(-key.column * TILE_SIZE, -key.row * TILE_SIZE);
+            tg.scale(levelPpm, levelPpm);
+            // Only the lanes of this tile's world area (Y up) are stroked
+            double tileMeters = TILE_SIZE / levelPpm;
+            Rectangle2D.Double tileWorld = new Rectangle2D.Double(key.column * tileMeters,
+                    -(key.row + 1) * tileMeters, tileMeters, tileMeters);
+            RoadPainter.paint(tg, network, Math.sqrt(levelPpm), roadColor, tileWorld);
+        } catch (Exception e) {
+            logger.warn("Road tile {}/{}/{} failed: {}", key.level, key.column, key.row, e.toString());
+        } finally {
+            tg.dispose();
+        }
+
+        synchronized (this) {
+            if (pending.remove(key) == null || network != geometry) return; // Flushed meanwhile
+            tiles.put(key, tile);
+            cacheBytes += TILE_BYTES;
+            evict();
+        }
+        onTileReady.run();
+    }
+
+    /**
+     * Least recently drawn tiles go first once the byte budget is exceeded (caller holds the monitor)
+     */
+    private void evict() {
+        Iterator<BufferedImage> it = tiles.values().iterator();
+        while (cacheBytes > MAX_CACHE_BYTES && it.hasNext()) {
+            it.next();
+            it.remove();
+            cacheBytes -= TILE_BYTES;
+        }
+    }
+
+    private void clear() {
+        tiles.clear();
+        pending.clear();
+        cacheBytes = 0;
+    }
+
+    private static int floorTile(double levelPixel) {
+        return (int) Math.floor(levelPixel / TILE_SIZE);
+    }
+}
@@ -0,0 +1,61 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+/**
+ * Draws the signal heads of a snapshot as color-coded circles (red/green/yellow) with optional edge labels,
+ * in the map's layer space (world position * mapScale, Y-axis inverted).
+ * Positions come from the precomputed flat tables of the TrafficLightIndex, so a frame only reads the
+ * state char and two doubles per link. The label font is cached per size.
+ * Used on the EDT only.
+ */
+public class SignalPainter {
+    private Font labelFont;
+
+    public void paint(Graphics2D g, WorldSnapshot current, float mapScale, boolean showLabels) {
+        TrafficLightIndex index = current.getTrafficLights();
+
+        // Per-frame constants: icon size clamped between 3 and 10px, label font cached per size
+        int size = Math.max(3, Math.min(10, (int) (6 * mapScale)));
+        int half = size / 2;
+        int fontSize = Math.max(5, (int) (6 * mapScale));
+        if (showLabels && (labelFont == null || labelFont.getSize() != fontSize)) {
+            labelFont = new Font("Arial", Font.PLAIN, fontSize);
+        }
+        if (showLabels) g.setFont(labelFont);
+
+        for (int t = 0; t < index.size(); t++) {
+            String state = current.getTlState(t);
+            int base = index.getLinkOffset(t);
+            int links = Math.min(index.getLinkCount(t), state.length());
+
+            // Iterate through controlled links, synchronized with the state string
+            for (int i = 0; i < links; i++) {
+                // 1. Precomputed signal-head position from the flat table
+                double px = index.getSignalX(base + i);
+                if (Double.isNaN(px)) continue;
+
+                // 2. Coordinate Transformation (Apply scale and invert Y-axis for screen rendering)
+                int sx = (int) (px * mapScale);
+                int sy = (int) (-index.getSignalY(base + i) * mapScale);
+
+                // Map SUMO state characters to UI colors
+                g.setColor(switch (state.charAt(i)) {
+                    case 'g' -> Color.GREEN;
+                    case 'y' -> Color.YELLOW;
+                    case 'r' -> Color.RED;
+                    default  -> Color.GRAY;
+                });
+
+                // Render the circular signal icon with a black outline for better contrast on the map
+                g.fillOval(sx - half, sy - half, size, size);
+                g.setColor(Color.BLACK);
+                g.drawOval(sx - half, sy - half, size - 1, size - 1);
+
+                if (showLabels) {
+                    g.drawString(index.getEdgeId(t, i), sx - 10, sy - 12);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,979 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.sumo.libtraci.Simulation;
+import org.eclipse.sumo.libtraci.StringVector;
+import org.eclipse.sumo.libtraci.TraCIPositionVector;
+import org.eclipse.sumo.libtraci.Vehicle;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Swing-free core of a SUMO session: TraCI lifecycle, the simulation thread, per-step data
+ * capture and the static network. Front ends (SumoBusinessService for the GUI, SumoHeadlessRunner
+ * for batch runs) drive it through its public methods and are notified via a SimulationListener.
+ */
+public class SimulationEngine {
+    private static final Logger logger = LogManager.getLogger(SimulationEngine.class);
+
+    // libtraci holds one global connection: every thread that talks TraCI synchronizes on this lock
+    public static final Object TRACI_LOCK = new Object();
+
+    private static final double CONGESTION_THRESHOLD_KMH = 5.0; // Congestion speed threshold (km/h)
+
+    // Checkpoint ring defaults: one state every minute of simulated time, at most 256 MB or the last hour
+    private static final double CHECKPOINT_INTERVAL_S = 60.0;
+    private static final long CHECKPOINT_MAX_BYTES = 256L << 20;
+    private static final double CHECKPOINT_MAX_AGE_S = 3600.0;
+
+    private static final int PIPELINE_CAPACITY = 4; // Fetched frames that may wait for aggregation
+
+    private final SimulationListener listener;
+    private volatile List<String> sumoOptions = List.of(); // Extra SUMO options of this session (kept for resets)
+    private File initialState; // Simulation.saveState right after connect; reset restores it in-process
+
+    // Core simulation data statistics variables
+    private int totalSteps = 0; // Total simulation steps
+    private volatile int furthestStep = 0; // Furthest step reached so far (end of the timeline)
+
+    // Periodic saveState checkpoints for rewinding (simulation thread only)
+    private double checkpointInterval = CHECKPOINT_INTERVAL_S;
+    private CheckpointRing checkpoints = new CheckpointRing(0, 0, 0);
+
+    // Latest per-step world snapshot (published atomically, read-only for dashboard/filter/map)
+    private volatile WorldSnapshot snapshot = WorldSnapshot.EMPTY;
+
+    private volatile TraCIPositionVector sumoMapBoundary; // Map boundary stored in TraCIPositionVector
+    // Road geometry published chunk by chunk while the network loads in the background
+    private final RoadNetworkPreload roadPreload = new RoadNetworkPreload();
+
+    // Dedicated simulation thread (steps, reset, injections); front ends only read published snapshots
+    private final SimulationRunner runner = new SimulationRunner(this::performStep, 1.0);
+    private volatile boolean traciOpen = false; // TraCI session usable (checked under TRACI_LOCK)
+    private volatile double realTimeFactor = 1.0; // Pacing target of continuous mode (sim s per wall s)
+    private final RateMeter stepMeter = new RateMeter(); // Achieved steps/s
+    private int markedStep = 0; // Last step counted by stepMeter (simulation thread only)
+
+    // Aggregate stage: builds and publishes snapshots while SUMO computes the next step
+    private final PipelineStage<StepFrame> aggregator = new PipelineStage<>("snapshot-aggregator",
+            PIPELINE_CAPACITY, PipelineStage.Backpressure.BLOCK, this::publishFrame);
+    private final PipelineStats pipelineStats = new PipelineStats();
+
+    // Unthrottled mode: continuous runs advance in batches of steps with one bulk read per batch
+    private volatile boolean maxSpeedMode = false;
+    private volatile StepBatcher batcher = StepBatcher.everyMillis(200);
+    private volatile StopCondition stopCondition = StopCondition.NONE;
+
+    private volatile SumoNetwork network; // Static network model parsed from the .net.xml (null = not available)
+    private volatile boolean roadGeometryEnabled = true; // Off for front ends without a map (headless runs)
+
+    // Subscription-based vehicle data (one bulk TraCI read per step)
+    private final VehicleSubscriptionManager vehicleSubscriptions =
+            new VehicleSubscriptionManager(CONGESTION_THRESHOLD_KMH);
+
+    // Static traffic light topology (built once at connect; only states are polled per step)
+    private volatile TrafficLightIndex tlIndex = TrafficLightIndex.EMPTY;
+
+    // Viewport mode: only vehicles inside the visible map area are transferred for rendering
+    private final ViewportSubscription viewportSubscription = new ViewportSubscription();
+    private volatile boolean viewportMode = false;      // Requested by the front end
+    private boolean viewportModeApplied = false;        // Currently applied on the TraCI side
+    private volatile Rectangle2D.Double visibleWorldRect; // Visible world area reported by the map
+
+    public SimulationEngine(SimulationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * SUMO command line for a config plus extra options (e.g. --seed, --scale);
+     * "--start" is only understood (and needed) by sumo-gui
+     */
+    public static String[] commandLine(String sumoBinary, String configPath, List<String> options) {
+        List<String> args = new ArrayList<>(List.of(sumoBinary, "-c", configPath));
+        if (new File(sumoBinary).getName().startsWith("sumo-gui")) {
+            args.add("--start");
+        }
+        args.addAll(options);
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Start SUMO with the config's own settings
+     */
+    public void start(String sumoBinary, String configPath) throws Exception {
+        start(sumoBinary, configPath, List.of());
+    }
+
+    /**
+     * Start SUMO and open the TraCI session (blocking; call from a background thread).
+     * Returns once the static network is loaded; stepping is possible as soon as onConnected() fired.
+     */
+    public void start(String sumoBinary, String configPath, List<String> options) throws Exception {
+        // Parse network file path from SUMO config (IO bound)
+        String netFilePath = SumoCfgParser.parseNetFilePath(configPath);
+        if (!new File(netFilePath).exists()) {
+            throw new IOException("Network file defined in config does not exist: " + netFilePath);
+        }
+
+        // "-c" is sufficient as the config file points to all other required files
+        sumoOptions = List.copyOf(options);
+        String[] args = commandLine(sumoBinary, configPath, sumoOptions);
+        logger.debug("SUMO command: {}", String.join(" ", args));
+
+        // 1. Load the static network while SUMO is starting up (binary cache, else stream the .net.xml)
+        int generation = roadPreload.begin();
+        boolean withGeometry = roadGeometryEnabled;
+        CompletableFuture<SumoNetwork> networkLoad = withGeometry
+                ? CompletableFuture.supplyAsync(() -> loadNetwork(netFilePath, generation))
+                : CompletableFuture.completedFuture(null);
+
+        // 2. Native Library Loading & Process Start
+        Simulation.preloadLibraries();
+        Simulation.start(new StringVector(args));
+
+        // Retrieve map dimensions for coordinate mapping and centering
+        sumoMapBoundary = Simulation.getNetBoundary();
+
+        // Remember the initial state for fast resets, then subscribe vehicles already in the network
+        saveInitialState();
+        checkpoints = new CheckpointRing(checkpointInterval, CHECKPOINT_MAX_BYTES, CHECKPOINT_MAX_AGE_S);
+        furthestStep = 0;
+        vehicleSubscriptions.subscribeAll();
+        snapshot = captureSnapshot(false);
+        markedStep = 0;
+        runner.setStepLength(Simulation.getDeltaT()); // Pacing honours the configured step length
+        traciOpen = true;
+        aggregator.start();
+        runner.start();
+        listener.onConnected();
+
+        // 3. Finish the static network while the front end already shows partial geometry
+        finishNetworkPreload(networkLoad, generation, withGeometry);
+    }
+
+    /**
+     * Whether start() builds the static road geometry (net file parse and cache, draw paths, grid index).
+     * Front ends without a map turn it off; the traffic-light topology is then read over TraCI.
+     */
+    public void setRoadGeometryEnabled(boolean enabled) {
+        roadGeometryEnabled = enabled;
+    }
+
+    /**
+     * Close the TraCI session and drop all per-connection state
+     */
+    public void close() {
+        runner.pause();
+        runner.clearPending();
+
+        // Invalidate a running network preload first, so it does not touch the closed connection
+        synchronized (TRACI_LOCK) {
+            traciOpen = false;
+            roadPreload.reset();
+            Simulation.close();
+            discardInitialState();
+            checkpoints.clear();
+        }
+        // Frames still waiting for aggregation belong to the closed session
+        aggregator.clear();
+        drainPipeline();
+        snapshot = WorldSnapshot.EMPTY;
+        tlIndex = TrafficLightIndex.EMPTY;
+        network = null;
+        resetViewportState();
+    }
+
+    /**
+     * Return to the initial state on the simulation thread (in order with queued steps).
+     * The state saved at connect is loaded into the running SUMO process; only if that is not
+     * possible, SUMO is restarted with the same config. Network geometry and TL topology are kept.
+     */
+    public void reset(String sumoBinary, String configPath) {
+        runner.clearPending();
+        runner.submitTimeJump(() -> {
+            try {
+                // Pending frames of the old timeline are not worth aggregating
+                aggregator.clear();
+                drainPipeline();
+                WorldSnapshot current;
+                synchronized (TRACI_LOCK) {
+                    // Closed meanwhile: a restart here would reopen a session the UI already dropped
+                    if (!traciOpen) return;
+                    if (!restoreInitialState()) {
+                        // Close existing TraCI session and kill the SUMO process
+                        traciOpen = false;
+                        Simulation.close();
+
+                        // Restart the simulation engine
+                        Simulation.start(new StringVector(commandLine(sumoBinary, configPath, sumoOptions)));
+                        traciOpen = true;
+
+                        // Replace the state that could not be loaded, so the next reset runs in-process again
+                        discardInitialState();
+                        saveInitialState();
+                    }
+                    resubscribeFromStart();
+                    checkpoints.clear();
+                    furthestStep = 0;
+                    current = captureSnapshot(false);
+                    markedStep = totalSteps;
+                }
+                snapshot = current;
+                logger.info("The simulation has been reset to its initial state successfully.");
+                listener.onSnapshot(current);
+
+            } catch (Exception e) {
+                String errorMsg = "Reset failed: " + e.toString();
+                logger.error(errorMsg);
+                listener.onError(errorMsg, false);
+            }
+        });
+    }
+
+    /**
+     * Move to an exact step of the timeline on the simulation thread: rewind to the nearest
+     * checkpoint at or before it (or the initial state), then fast-forward the remaining steps.
+     * Checkpoints after the target are dropped, since the run continues from there.
+     */
+    public void seekTo(int targetStep) {
+        runner.submitTimeJump(() -> {
+            try {
+                aggregator.clear();
+                drainPipeline();
+                WorldSnapshot current;
+                synchronized (TRACI_LOCK) {
+                    if (!traciOpen) return;
+                    int target = Math.max(0, Math.min(targetStep, furthestStep));
+
+                    // 1. Rewind if the target lies behind us, or skip ahead if a checkpoint is closer than stepping
+                    CheckpointRing.Checkpoint checkpoint = checkpoints.floor(target);
+                    if (checkpoint != null && (target < totalSteps || checkpoint.getStep() > totalSteps)) {
+                        loadCheckpoint(checkpoint);
+                    } else if (target < totalSteps) {
+                        if (!restoreInitialState()) {
+                            throw new IllegalStateException("No checkpoint at or before step " + target);
+                        }
+                        resubscribeFromStart();
+                    }
+
+                    // 2. Fast-forward to the exact step, one tracked step at a time
+                    int remaining = target - totalSteps;
+                    if (remaining > 0) {
+                        advanceTracked(remaining, false);
+                    }
+                    checkpoints.truncateAfter(target);
+                    current = captureSnapshot(true);
+                    markedStep = totalSteps;
+                }
+                snapshot = current;
+                logger.info("Timeline moved to step {} ({} s)", current.getStep(), current.getSimTime());
+                listener.onSnapshot(current);
+
+            } catch (Exception e) {
+                String errorMsg = "Seek failed: " + e.toString();
+                logger.error(errorMsg);
+                listener.onError(errorMsg, false);
+            }
+        });
+    }
+
+    /**
+     * Checkpoint interval in simulated seconds for the next session (0 disables checkpoints)
+     */
+    public void setCheckpointInterval(double seconds) {
+        checkpointInterval = seconds;
+    }
+
+    /**
+     * Behaviour of the aggregate stage queue when SUMO steps faster than snapshots are built
+     */
+    public void setBackpressure(PipelineStage.Backpressure backpressure) {
+        aggregator.setBackpressure(backpressure);
+        logger.info("Pipeline backpressure set to {}", backpressure);
+    }
+
+    /**
+     * Per-stage latency of the step pipeline (the front end records the render stage)
+     */
+    public PipelineStats getPipelineStats() {
+        return pipelineStats;
+    }
+
+    /**
+     * Frames discarded by the drop-oldest policy so far
+     */
+    public long getDroppedFrames() {
+        return aggregator.getDropped();
+    }
+
+    /**
+     * Furthest step reached in this session (the timeline can be scrubbed within [0, furthest])
+     */
+    public int getFurthestStep() {
+        return furthestStep;
+    }
+
+    /**
+     * Queue exactly one step on the simulation thread
+     */
+    public void stepOnce() {
+        runner.stepOnce();
+    }
+
+    /**
+     * Start stepping continuously on the simulation thread
+     */
+    public void play() {
+        runner.play();
+    }
+
+    /**
+     * Pause continuous stepping (a step in progress still completes and is published)
+     */
+    public void pause() {
+        runner.pause();
+    }
+
+    public boolean isPlaying() {
+        return runner.isPlaying();
+    }
+
+    /**
+     * Whether a TraCI session is open (started and not closed)
+     */
+    public boolean isOpen() {
+        return traciOpen;
+    }
+
+    /**
+     * Target real-time factor of continuous mode (simulated seconds per wall-clock second)
+     */
+    public void setRealTimeFactor(double factor) {
+        realTimeFactor = factor;
+        if (!maxSpeedMode) {
+            runner.setRealTimeFactor(factor);
+        }
+        logger.info("Target real-time factor set to {}x", factor);
+    }
+
+    /**
+     * Real-time mode: continuous runs stay in lockstep with the wall clock at the target factor,
+     * catching up in batches when a step or a command made them fall behind
+     */
+    public void setRealTimeMode(boolean enabled) {
+        runner.setRealTime(enabled);
+        logger.info("Real-time mode {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Lag statistics of real-time mode (last report window; empty if none yet)
+     */
+    public String getLagSummary() {
+        return runner.getScheduler().getLagSummary();
+    }
+
+    /**
+     * Whether the measured step cost allows the target real-time factor (always true in max speed mode)
+     */
+    public boolean isPacingSustainable() {
+        return runner.getScheduler().isSustainable();
+    }
+
+    /**
+     * Highest real-time factor the measured step cost allows
+     */
+    public double getAchievableRealTimeFactor() {
+        return runner.getScheduler().getAchievableFactor();
+    }
+
+    /**
+     * Unthrottled continuous mode: no pacing, steps are executed in batches between snapshots
+     */
+    public void setMaxSpeedMode(boolean enabled) {
+        maxSpeedMode = enabled;
+        runner.setRealTimeFactor(enabled ? Double.POSITIVE_INFINITY : realTimeFactor);
+        logger.info("Max speed mode {} (sampling {})", enabled ? "enabled" : "disabled", batcher);
+    }
+
+    /**
+     * How often a max-speed run collects statistics and publishes a snapshot
+     */
+    public void setBatchSampling(StepBatcher sampling) {
+        batcher = sampling;
+    }
+
+    /**
+     * Condition at which continuous runs pause by themselves
+     */
+    public void setStopCondition(StopCondition condition) {
+        stopCondition = condition;
+        logger.info("Stop condition: {}", condition);
+    }
+
+    /**
+     * Inject vehicles between two steps (Vehicle.add/moveTo run on the simulation thread)
+     */
+    public void injectVehicles(String edgeId, String routeId, int batchCount) {
+        runner.submit(() -> {
+            synchronized (TRACI_LOCK) {
+                if (traciOpen) addVehicles(edgeId, routeId, batchCount);
+            }
+        });
+    }
+
+    /**
+     * End time configured in the .sumocfg (negative if the simulation runs until all vehicles arrived)
+     */
+    public double getConfiguredEndTime() {
+        synchronized (TRACI_LOCK) {
+            return traciOpen ? Simulation.getEndTime() : -1;
+        }
+    }
+
+    /**
+     * Latest published snapshot
+     */
+    public WorldSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Achieved simulation steps per second since the previous call
+     */
+    public double sampleStepRate() {
+        return stepMeter.sample();
+    }
+
+    public long getStepCount() {
+        return stepMeter.getCount();
+    }
+
+    /**
+     * Live vehicles and the running aggregates (only consistent on the simulation thread or after a run stopped)
+     */
+    public VehicleRegistry getRegistry() {
+        return vehicleSubscriptions.getRegistry();
+    }
+
+    public TraCIPositionVector getMapBoundary() { return sumoMapBoundary; }
+    public RoadNetworkPreload getRoadPreload() { return roadPreload; }
+    public SumoNetwork getNetwork() { return network; }
+    public TrafficLightIndex getTrafficLightIndex() { return tlIndex; }
+    public boolean isViewportMode() { return viewportMode; }
+
+    /**
+     * Only transfer vehicles inside the visible area (applied on the next step)
+     */
+    public void setViewportMode(boolean enabled) {
+        viewportMode = enabled;
+    }
+
+    /**
+     * Visible world area of the map, used by the viewport subscription on the next step
+     */
+    public void setVisibleWorldRect(Rectangle2D.Double rect) {
+        visibleWorldRect = rect;
+    }
+
+    /**
+     * Save the state right after startup to a temporary file (binary .sbx, fastest to load back)
+     */
+    private void saveInitialState() {
+        try {
+            File state = File.createTempFile("sumo-initial-", ".sbx");
+            state.deleteOnExit();
+            Simulation.saveState(state.getPath());
+            initialState = state;
+            logger.info("Initial simulation state saved for fast reset ({} KB)", state.length() / 1024);
+        } catch (Exception e) {
+            initialState = null;
+            logger.warn("Failed to save the initial state, reset will restart SUMO: {}", e.toString());
+        }
+    }
+
+    /**
+     * Load the initial state into the running process (caller holds TRACI_LOCK); false if not possible
+     */
+    private boolean restoreInitialState() {
+        File state = initialState;
+        if (!traciOpen || state == null || !state.isFile()) return false;
+        try {
+            // The viewport anchor is an extra POI, not part of the state: remove it before loading
+            viewportSubscription.close();
+            double time = Simulation.loadState(state.getPath());
+            logger.info("Initial state restored in-process at {} s", time);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Loading the initial state failed, restarting SUMO: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Back at the initial state (after loadState or a restart): subscriptions and counters start over
+     */
+    private void resubscribeFromStart() {
+        resetViewportState();
+        vehicleSubscriptions.subscribeAll();
+        tlIndex.subscribeStates(); // Same network: keep the topology, renew the state subscription
+
+        // Zero out internal counters (vehicle aggregates were cleared with the subscriptions)
+        totalSteps = 0;
+    }
+
+    /**
+     * Save a ring checkpoint when the interval has elapsed (caller holds TRACI_LOCK, after captureSnapshot)
+     */
+    private void takeCheckpointIfDue(double simTime) {
+        if (!checkpoints.isDue(simTime)) return;
+        try {
+            File file = checkpoints.nextFile(totalSteps);
+            Simulation.saveState(file.getPath());
+            checkpoints.add(new CheckpointRing.Checkpoint(totalSteps, simTime, file, vehicleSubscriptions.getRegistry()));
+        } catch (Exception e) {
+            logger.warn("Checkpoint at step {} failed: {}", totalSteps, e.toString());
+        }
+    }
+
+    /**
+     * Load a ring checkpoint and rebuild the Java-side state for it (caller holds TRACI_LOCK)
+     */
+    private void loadCheckpoint(CheckpointRing.Checkpoint checkpoint) {
+        viewportSubscription.close(); // The anchor POI is not part of the state
+        Simulation.loadState(checkpoint.getFile().getPath());
+        resetViewportState();
+        checkpoint.restoreTotals(vehicleSubscriptions.getRegistry());
+        vehicleSubscriptions.subscribeRestored(checkpoint.getSimTime());
+        tlIndex.subscribeStates();
+        totalSteps = checkpoint.getStep();
+        logger.info("Checkpoint loaded: step {} ({} s)", checkpoint.getStep(), checkpoint.getSimTime());
+    }
+
+    private void discardInitialState() {
+        File state = initialState;
+        initialState = null;
+        if (state != null && !state.delete()) {
+            logger.debug("Could not delete state file {}", state);
+        }
+    }
+
+    /**
+     * Preload road network data (all lane shapes) over TraCI, publishing each chunk as it arrives
+     */
+    private void preloadRoadNetworkData(int generation) {
+        try {
+            RoadGeometryStore geometry = RoadGeometryStore.loadFromTraci(TRACI_LOCK, roadChunkListener(generation));
+            roadPreload.complete(generation, geometry);
+            listener.onGeometryChanged();
+        } catch (Exception e) {
+            logger.error("Failed to preload road network data: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes partial road geometry of one load and tells the front end
+     */
+    private RoadGeometryStore.ChunkListener roadChunkListener(int generation) {
+        return (chunk, progress) -> {
+            roadPreload.publish(generation, chunk, progress);
+            listener.onGeometryChanged();
+        };
+    }
+
+    /**
+     * Static network model from the binary cache next to the net file; parsed and cached on a miss
+     */
+    private SumoNetwork loadNetwork(String netFilePath, int generation) {
+        File netFile = new File(netFilePath);
+        SumoNetwork cached = NetworkCache.load(netFile);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            SumoNetwork parsed = SumoNetParser.parse(netFilePath, roadChunkListener(generation));
+            CompletableFuture.runAsync(() -> NetworkCache.store(netFile, parsed)); // Not on the connect path
+            return parsed;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Wait for the background network parse; null if it failed (callers fall back to TraCI)
+     */
+    private SumoNetwork awaitNetwork(CompletableFuture<SumoNetwork> networkLoad) {
+        try {
+            return networkLoad.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Network file parsing failed, loading geometry over TraCI: {}", cause.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Static geometry and TL topology: from the parsed file, or over TraCI (in locked chunks) if parsing failed.
+     * Without geometry only the TL topology is read over TraCI.
+     */
+    private void finishNetworkPreload(CompletableFuture<SumoNetwork> networkLoad, int generation,
+                                      boolean withGeometry) {
+        try {
+            SumoNetwork loaded = awaitNetwork(networkLoad);
+            TrafficLightIndex index;
+            if (loaded != null) {
+                roadPreload.complete(generation, loaded.getRoads());
+                index = TrafficLightIndex.fromNetwork(loaded);
+            } else {
+                if (withGeometry) preloadRoadNetworkData(generation);
+                synchronized (TRACI_LOCK) {
+                    index = TrafficLightIndex.build();
+                }
+            }
+            // Afterwards only the RYG states are read
+            synchronized (TRACI_LOCK) {
+                if (roadPreload.isCurrent(generation)) {
+                    network = loaded;
+                    tlIndex = index;
+                    index.subscribeStates();
+                }
+            }
+            listener.onGeometryChanged();
+
+            // Zoom bands for zoomed-out frames: simplified here, not on the first frame that needs them
+            RoadGeometryStore roads = roadPreload.getGeometry();
+            if (withGeometry && roads != null && roadPreload.isCurrent(generation)) {
+                roads.buildLevelsOfDetail();
+                listener.onGeometryChanged();
+            }
+        } catch (Exception e) {
+            logger.warn("Network preload aborted: {}", e.toString());
+        }
+    }
+
+    /**
+     * One simulation step (or one batch of steps in max speed mode, or a real-time catch-up batch
+     * of dueSteps) on the runner thread: step, capture the snapshot, publish it
+     */
+    private void performStep(int dueSteps) {
+        StepFrame frame;
+        boolean continuous = runner.isPlaying();
+        boolean stopReached = false;
+        StopCondition stop = stopCondition;
+        try {
+            synchronized (TRACI_LOCK) {
+                if (!traciOpen) return; // Disconnected while the step was queued
+
+                // 1. Move/resize the viewport subscription before SUMO computes the step
+                syncViewportSubscription();
+
+                // 2. Step stage
+                long stepStart = System.nanoTime();
+                boolean batched = maxSpeedMode && continuous;
+                if (batched) {
+                    StepBatcher sampling = batcher;
+                    long start = System.nanoTime();
+                    int steps = stepBatch(stop, sampling.nextBatch());
+                    sampling.record(steps, System.nanoTime() - start);
+                } else if (dueSteps > 1) {
+                    stepBatch(stop, dueSteps); // Real-time mode fell behind the wall clock
+                    batched = true;
+                } else {
+                    // Execute one simulation step (typically 1 second in SUMO)
+                    Simulation.step();
+                    totalSteps++;
+                }
+
+                // 3. Fetch stage: everything that needs TraCI, aggregation happens off this thread
+                long fetchStart = System.nanoTime();
+                frame = fetchFrame(batched);
+                pipelineStats.record(PipelineStats.Stage.STEP, fetchStart - stepStart);
+                pipelineStats.record(PipelineStats.Stage.FETCH, System.nanoTime() - fetchStart);
+                furthestStep = Math.max(furthestStep, totalSteps);
+                takeCheckpointIfDue(frame.simTime);
+
+                // Only continuous runs stop by themselves; the expected count comes with the step response
+                if (continuous && stop.getType() != StopCondition.Type.NONE) {
+                    int expected = stop.needsExpectedVehicles() ? vehicleSubscriptions.getExpectedVehicles() : 0;
+                    stopReached = stop.isReached(frame.simTime, totalSteps, expected);
+                }
+            }
+            logger.debug("Simulation progressed to step: {}", totalSteps);
+        } catch (Exception e) {
+            // Simplified error message retrieval using e.toString() to avoid manual null checks
+            String errorMsg = "Single-step failed: " + e.toString();
+            logger.error(errorMsg);
+            runner.pause();
+            // 4. Critical: Handle session interruption (e.g., SUMO closed by the user)
+            // Check for "Connection reset" or "Broken pipe" which indicate socket closure
+            boolean connectionLost = e.getMessage() != null
+                    && (e.getMessage().contains("Connection reset") || e.getMessage().contains("pipe"));
+            drainPipeline(); // Deliver the steps before the failure first
+            listener.onError(errorMsg, connectionLost);
+            return;
+        }
+
+        // 5. Hand the frame to the aggregate stage; SUMO computes the next step meanwhile
+        stepMeter.mark(Math.max(1, frame.step - markedStep));
+        markedStep = frame.step;
+        if (stopReached) {
+            runner.pause();
+            frame.stopReached = stop;
+        }
+        frame.queuedNanos = System.nanoTime();
+        try {
+            aggregator.submit(frame, stopReached); // The stop notification is never dropped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Runner shutdown
+        }
+    }
+
+    /**
+     * Aggregate stage (snapshot-aggregator thread): build the snapshot of a fetched frame and publish it
+     */
+    private void publishFrame(StepFrame frame) {
+        long start = System.nanoTime();
+        pipelineStats.record(PipelineStats.Stage.QUEUE, start - frame.queuedNanos);
+        if (!traciOpen) return; // Session closed while the frame was queued
+
+        // Publish: readers always see a complete snapshot
+        WorldSnapshot current = aggregate(frame);
+        snapshot = current;
+        listener.onSnapshot(current);
+        pipelineStats.record(PipelineStats.Stage.AGGREGATE, System.nanoTime() - start);
+
+        if (frame.stopReached != null) {
+            logger.info("Stop condition reached ({}) at step {}", frame.stopReached, current.getStep());
+            listener.onStopConditionReached(frame.stopReached, current);
+        }
+    }
+
+    /**
+     * Wait until the aggregate stage has published every submitted frame
+     */
+    private void drainPipeline() {
+        try {
+            aggregator.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Advance a batch of steps, limited by the stop condition (caller holds TRACI_LOCK)
+     */
+    private int stepBatch(StopCondition stop, int requestedSteps) {
+        int steps = stop.limitBatch(requestedSteps, Simulation.getTime(), totalSteps, Simulation.getDeltaT());
+        return advanceTracked(steps, stop.needsExpectedVehicles());
+    }
+
+    /**
+     * Advance up to the given number of steps one at a time, applying only each step's departed/arrived
+     * lists (the bulk read follows once with fetchFrame(true)), so trips that start and end inside the
+     * batch are still counted. Time and both lists come with the step response: one round trip per step.
+     * With untilEmpty, the batch ends on the step after which no vehicle is running or expected anymore.
+     * Returns the steps taken; fewer at the end of the simulation.
+     */
+    private int advanceTracked(int steps, boolean untilEmpty) {
+        double fallbackSpeed = vehicleSubscriptions.getRegistry().getMeanSpeed();
+        double time = Simulation.getTime();
+        int done = 0;
+        while (done < steps) {
+            Simulation.step();
+            double now = vehicleSubscriptions.trackBatchStep(fallbackSpeed);
+            if (now <= time) break; // SUMO has reached the end of the simulation (nothing departs or arrives)
+            time = now;
+            done++;
+            if (untilEmpty && vehicleSubscriptions.getExpectedVehicles() <= 0) break; // Network just emptied
+        }
+        totalSteps += done;
+        return done;
+    }
+
+    /**
+     * Apply the requested viewport mode and the current visible area on the TraCI side
+     */
+    private void syncViewportSubscription() {
+        boolean wanted = viewportMode;
+        if (wanted != viewportModeApplied) {
+            // Positions are only subscribed per vehicle when the whole map is drawn
+            vehicleSubscriptions.setPositionsSubscribed(!wanted);
+            if (!wanted) {
+                viewportSubscription.close();
+            }
+            viewportModeApplied = wanted;
+        }
+        Rectangle2D.Double viewport = visibleWorldRect;
+        if (viewportModeApplied && viewport != null) {
+            viewportSubscription.update(viewport);
+        }
+    }
+
+    /**
+     * Forget TraCI-side viewport state after the connection was closed or restarted
+     */
+    private void resetViewportState() {
+        viewportSubscription.reset();
+        vehicleSubscriptions.reset();
+        viewportModeApplied = false;
+    }
+
+    /**
+     * Fetch and aggregate synchronously, for snapshots outside the step pipeline (connect, reset, seek)
+     * (afterBatch: several steps were taken since the last capture)
+     */
+    private WorldSnapshot captureSnapshot(boolean afterBatch) {
+        return aggregate(fetchFrame(afterBatch));
+    }
+
+    /**
+     * Fetch stage: read everything of the current step that needs TraCI (caller holds TRACI_LOCK).
+     * Registry counters are copied, since the registry moves on with the next step.
+     */
+    private StepFrame fetchFrame(boolean afterBatch) {
+        // 1. Apply the departed/arrived deltas and fetch all subscribed vehicle values in one bulk TraCI read
+        double currentSimTime = Simulation.getTime();
+        WorldSnapshot.Vehicles vehicles = afterBatch
+                ? vehicleSubscriptions.finishBatch(currentSimTime)
+                : vehicleSubscriptions.update(currentSimTime);
+        VehicleRegistry registry = vehicleSubscriptions.getRegistry();
+
+        // 2. Read all TL states in one call
+        TrafficLightIndex index = tlIndex;
+        String[] tlStates = index.readStates();
+
+        WorldSnapshot.Vehicles visible = viewportModeApplied ? viewportSubscription.read() : vehicles;
+        // Counters and distance/time totals are maintained incrementally by the registry
+        return new StepFrame(totalSteps, currentSimTime, vehicles, visible, index, tlStates,
+                registry.size(), registry.getRunning(), registry.getCongested(), registry.getAverageSpeedKmh());
+    }
+
+    /**
+     * Aggregate stage: derive the dashboard statistics of a fetched frame (no TraCI access)
+     */
+    private static WorldSnapshot aggregate(StepFrame frame) {
+        // 1. Count TL states against the static edge groups
+        TrafficLightIndex index = frame.trafficLights;
+        String[] tlStates = frame.tlStates;
+        int tlTotal = 0, tlRed = 0, tlGreen = 0, tlYellow = 0;
+
+        for (int t = 0; t < index.size(); t++) {
+            String state = tlStates[t];
+            // Only the first link of each controlled edge is counted (edge-based deduplication)
+            for (int k = 0; k < index.getCountedLinkCount(t); k++) {
+                int link = index.getCountedLink(t, k);
+                if (link >= state.length()) break;
+
+                tlTotal++;
+                switch (state.charAt(link)) {
+                    case 'g' -> tlGreen++;
+                    case 'y' -> tlYellow++;
+                    case 'r', 'u' -> tlRed++;
+                }
+            }
+        }
+
+        // 2. Final metrics calculation (Normalization and Formatting)
+        double trafficEfficiency = frame.vehicleTotal > 0
+                ? (double) frame.vehicleRunning / frame.vehicleTotal * 100 : 0.0;
+
+        // Optimized time formatting: Using integer division and modulo
+        int totalSec = (int) frame.simTime;
+        String simulationTime = String.format("%02d:%02d:%02d",
+                totalSec / 3600, (totalSec % 3600) / 60, totalSec % 60);
+
+        // 3. Encapsulate statistics and world state into one immutable snapshot
+        SimulationData data = new SimulationData(
+                frame.vehicleTotal, frame.vehicleRunning, frame.vehicleCongested,
+                tlTotal, tlRed, tlGreen, tlYellow,
+                frame.step, frame.avgSpeed, trafficEfficiency,
+                simulationTime
+        );
+        return new WorldSnapshot(frame.step, frame.simTime, frame.vehicles, frame.visible, index, tlStates, data);
+    }
+
+    /**
+     * Raw data of one step as read by the fetch stage, handed to the aggregate stage
+     */
+    private static final class StepFrame {
+        final int step;
+        final double simTime;
+        final WorldSnapshot.Vehicles vehicles;
+        final WorldSnapshot.Vehicles visible;
+        final TrafficLightIndex trafficLights;
+        final String[] tlStates;
+        final int vehicleTotal;
+        final int vehicleRunning;
+        final int vehicleCongested;
+        final double avgSpeed;
+        StopCondition stopReached; // Set if this frame ends a continuous run
+        long queuedNanos;          // Submit time, for the queue wait statistics
+
+        StepFrame(int step, double simTime, WorldSnapshot.Vehicles vehicles, WorldSnapshot.Vehicles visible,
+                  TrafficLightIndex trafficLights, String[] tlStates,
+                  int vehicleTotal, int vehicleRunning, int vehicleCongested, double avgSpeed) {
+            this.step = step;
+            this.simTime = simTime;
+            this.vehicles = vehicles;
+            this.visible = visible;
+            this.trafficLights = trafficLights;
+            this.tlStates = tlStates;
+            this.vehicleTotal = vehicleTotal;
+            this.vehicleRunning = vehicleRunning;
+            this.vehicleCongested = vehicleCongested;
+            this.avgSpeed = avgSpeed;
+        }
+    }
+
+    private void addVehicles(String edgeId, String routeId, int batchCount) {
+        try {
+            // Create the specified number of vehicles
+            for (int i = 0; i < batchCount; i++) {
+                // Generate a unique vehicle ID using timestamp and index
+                String vehId = "veh" + System.currentTimeMillis() + "_" + i;
+                String typeId = "DEFAULT_VEHTYPE";
+                String departLane = "0";
+
+                // Build lane ID for the target edge (default lane 0)
+                String laneId = edgeId + "_0";
+
+                // Add the vehicle to the simulation with immediate departure
+                Vehicle.add(vehId,
+                        routeId,
+                        typeId,
+                        "now",
+                        departLane,
+                        "free",
+                        "0.0",
+                        "current",
+                        "0",
+                        "0");
+
+                // Try to move the vehicle to the specified edge and lane
+                try {
+                    Vehicle.moveTo(vehId, laneId, 0.0);
+                } catch (Exception e1) {
+                    // Fallback: try an alternative lane if lane 0 does not exist
+                    logger.info("Lane 0 not found -> try Edge _1");
+                    try {
+                        Vehicle.moveTo(vehId, edgeId + "_1", 0.0);
+                    } catch (Exception e2) {
+                        // Final fallback: vehicle remains at default position
+                        logger.info("Edge have no valid Lanes → Vehicle set on Default-Position");
+                    }
+                }
+                // Log successful vehicle creation
+                logger.info("Created vehicle: " + vehId);
+            }
+
+        } catch (Exception e) {
+            // Log and print any unexpected errors during vehicle injection
+            e.printStackTrace();
+            logger.error("Error injecting vehicles: " + e.getMessage());
+        }
+    }
+}
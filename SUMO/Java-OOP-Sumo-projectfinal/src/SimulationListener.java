@@ -0,0 +1,33 @@
+/**
+ * Callbacks of the SimulationEngine towards its front end (Swing frame or headless runner).
+ * All methods are invoked from engine threads (startup, loader or simulation thread);
+ * a GUI implementation has to hand the work over to the EDT itself.
+ */
+public interface SimulationListener {
+    /**
+     * The TraCI session is up and the first snapshot is published; stepping is possible from now on
+     */
+    void onConnected();
+
+    /**
+     * A step (or batch of steps in max speed mode) has been published
+     */
+    default void onSnapshot(WorldSnapshot snapshot) {
+    }
+
+    /**
+     * More static road geometry became available (preload chunk or completed network)
+     */
+    default void onGeometryChanged() {
+    }
+
+    /**
+     * A continuous run paused itself because its stop condition was reached
+     */
+    void onStopConditionReached(StopCondition condition, WorldSnapshot snapshot);
+
+    /**
+     * Stepping or a reset failed; connectionLost is set when the SUMO process is gone
+     */
+    void onError(String message, boolean connectionLost);
+}
@@ -0,0 +1,217 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Dedicated simulation thread that drives TraCI independently of the Swing EDT.
+ * In continuous mode it runs the step task paced by a StepScheduler (target real-time factor,
+ * or unpaced); single steps and other
+ * TraCI work (reset, injections) are submitted as commands and executed on the same thread in order.
+ * Scheduler settings are not commands: they are kept in volatile fields and applied by the loop,
+ * so clearing the queue (reset, close) cannot lose them. Commands that move simulation time
+ * (single step, reset, seek) re-anchor the schedule, so their wall time is not caught up as lag.
+ */
+public class SimulationRunner {
+    private static final Logger logger = LogManager.getLogger(SimulationRunner.class);
+
+    private final IntConsumer stepTask; // Run n simulation steps including data capture/publishing
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private volatile boolean playing = false;
+    private volatile boolean shutdown = false;
+    private final StepScheduler scheduler = new StepScheduler();
+    private Thread thread;
+
+    // Latest scheduler settings from any thread; the loop applies them when configChanged is set
+    private volatile double realTimeFactor;
+    private volatile boolean realTime = false;
+    private volatile double stepLength = 1.0;
+    private final AtomicBoolean configChanged = new AtomicBoolean(false);
+
+    public SimulationRunner(IntConsumer stepTask, double realTimeFactor) {
+        this.stepTask = stepTask;
+        this.realTimeFactor = realTimeFactor;
+        scheduler.setTargetFactor(realTimeFactor);
+    }
+
+    /**
+     * Start the runner thread (idempotent)
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        shutdown = false;
+        thread = new Thread(this::loop, "simulation-runner");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Simulation runner thread started");
+    }
+
+    /**
+     * Stop the thread after the current command/step; pending commands are dropped
+     */
+    public synchronized void shutdown() {
+        if (thread == null) return;
+        shutdown = true;
+        playing = false;
+        commands.clear();
+        thread.interrupt();
+        thread = null;
+    }
+
+    /**
+     * Continuous mode: step at the configured rate until paused
+     */
+    public void play() {
+        playing = true;
+        commands.add(() -> { }); // Wake the loop if it is waiting for commands
+    }
+
+    public void pause() {
+        playing = false;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Queue exactly one step (single-step mode)
+     */
+    public void stepOnce() {
+        commands.add(new TimeJump(() -> stepTask.accept(1)));
+    }
+
+    /**
+     * Run arbitrary TraCI work on the simulation thread, in order with the steps
+     */
+    public void submit(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Like submit(), for work that moves simulation time (reset, seek, checkpoint load):
+     * continuous runs continue from there on a fresh schedule
+     */
+    public void submitTimeJump(Runnable command) {
+        commands.add(new TimeJump(command));
+    }
+
+    /**
+     * Drop queued commands that have not started yet
+     */
+    public void clearPending() {
+        commands.clear();
+    }
+
+    /**
+     * Target real-time factor of continuous mode (infinite = unpaced); applied on the simulation thread
+     */
+    public void setRealTimeFactor(double factor) {
+        realTimeFactor = factor;
+        configure();
+    }
+
+    /**
+     * Real-time mode (wall-clock lockstep, catch-up batches); applied on the simulation thread
+     */
+    public void setRealTime(boolean enabled) {
+        realTime = enabled;
+        configure();
+    }
+
+    /**
+     * SUMO step length of the session, so the factor maps to the right step period
+     */
+    public void setStepLength(double seconds) {
+        stepLength = seconds;
+        configure();
+    }
+
+    private void configure() {
+        configChanged.set(true);
+        commands.add(() -> { }); // Wake the loop if it waits for a distant deadline
+    }
+
+    /**
+     * Simulation thread: hand the latest settings to the scheduler (each setter re-anchors it)
+     */
+    private void applyConfig() {
+        if (!configChanged.getAndSet(false)) return;
+        if (scheduler.getTargetFactor() != realTimeFactor) scheduler.setTargetFactor(realTimeFactor);
+        if (scheduler.isRealTime() != realTime) scheduler.setRealTime(realTime);
+        if (scheduler.getStepLength() != stepLength) scheduler.setStepLength(stepLength);
+    }
+
+    public StepScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private void loop() {
+        boolean wasPlaying = false;
+        while (!shutdown) {
+            try {
+                // 1. Commands first; while paused, block until one arrives
+                applyConfig();
+                Runnable command;
+                if (!playing) {
+                    wasPlaying = false;
+                    command = commands.take();
+                    applyConfig();
+                } else {
+                    if (!wasPlaying) {
+                        scheduler.anchor(System.nanoTime()); // Resume: no catching up on the paused time
+                        wasPlaying = true;
+                    }
+                    long wait = scheduler.nextDeadline(System.nanoTime()) - System.nanoTime();
+                    command = wait > 0 ? commands.poll(wait, TimeUnit.NANOSECONDS) : commands.poll();
+                }
+                if (command != null) {
+                    runSafely(command);
+                    if (command instanceof TimeJump && playing) {
+                        scheduler.anchor(System.nanoTime()); // Only SUMO's own slow steps are caught up
+                    }
+                    continue;
+                }
+
+                // 2. Continuous step(s) when the deadline is reached; the cost feeds the scheduler
+                if (playing) {
+                    long start = System.nanoTime();
+                    int steps = scheduler.takeDueSteps(start);
+                    runSafely(() -> stepTask.accept(steps));
+                    scheduler.stepDone(System.nanoTime() - start, steps);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        logger.info("Simulation runner thread stopped");
+    }
+
+    /**
+     * Marks a command after which the schedule is re-anchored
+     */
+    private static final class TimeJump implements Runnable {
+        private final Runnable command;
+
+        TimeJump(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            command.run();
+        }
+    }
+
+    private void runSafely(Runnable command) {
+        try {
+            command.run();
+        } catch (Exception e) {
+            logger.error("Simulation thread task failed: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Sizes the batches of the unthrottled ("max speed") mode. A batch is a run of single
+ * Simulation.step() calls, one round trip each (departed/arrived lists come with the step response);
+ * the bulk vehicle read, statistics and UI snapshots are only produced between batches, either every
+ * fixed number of steps or at a fixed wall-clock interval. In the interval mode the batch size follows
+ * the measured cost per step. Used by the simulation thread only.
+ */
+public class StepBatcher {
+    private static final int MAX_BATCH_STEPS = 10_000; // Steps per batch; keeps TRACI_LOCK hold times bounded
+    private static final double SMOOTHING = 0.3;       // Weight of the newest batch in the cost estimate
+
+    private final int fixedSteps;     // > 0: sample every N steps
+    private final long intervalNanos; // Used when fixedSteps is 0
+    private double nanosPerStep = -1; // Unknown until the first batch completed
+
+    private StepBatcher(int fixedSteps, long intervalNanos) {
+        this.fixedSteps = fixedSteps;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Sample every N simulation steps
+     */
+    public static StepBatcher everySteps(int steps) {
+        return new StepBatcher(Math.max(1, Math.min(MAX_BATCH_STEPS, steps)), 0);
+    }
+
+    /**
+     * Sample at a fixed wall-clock interval
+     */
+    public static StepBatcher everyMillis(long millis) {
+        return new StepBatcher(0, Math.max(1, millis) * 1_000_000L);
+    }
+
+    /**
+     * Number of steps for the next batch
+     */
+    public int nextBatch() {
+        if (fixedSteps > 0) return fixedSteps;
+        if (nanosPerStep <= 0) return 1; // Measure a single step first
+        return (int) Math.max(1, Math.min(MAX_BATCH_STEPS, intervalNanos / nanosPerStep));
+    }
+
+    /**
+     * Feed back how long a batch took
+     */
+    public void record(int steps, long elapsedNanos) {
+        if (steps <= 0) return;
+        double cost = (double) elapsedNanos / steps;
+        nanosPerStep = nanosPerStep <= 0 ? cost : nanosPerStep + SMOOTHING * (cost - nanosPerStep);
+    }
+
+    @Override
+    public String toString() {
+        return fixedSteps > 0 ? "every " + fixedSteps + " steps" : "every " + intervalNanos / 1_000_000 + " ms";
+    }
+}
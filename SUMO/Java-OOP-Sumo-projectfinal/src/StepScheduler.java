@@ -0,0 +1,190 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Paces continuous runs at a target real-time factor (simulated seconds per wall-clock second).
+ * Deadlines are absolute (anchor + simulated time / factor), so sleep jitter and step cost do not
+ * accumulate as drift. The measured cost of each step (including data collection) is averaged; when
+ * it exceeds the step period the target cannot be sustained, which is reported once per episode.
+ * In real-time mode the schedule is not re-anchored for slow steps: a backlog is caught up in batches
+ * of several steps, and the lag behind the wall clock is collected and logged periodically. Only
+ * play/resume, setting changes and commands that move simulation time (seek, reset) start it over.
+ * Used by the simulation thread only, except for the volatile status read by front ends.
+ */
+public class StepScheduler {
+    private static final Logger logger = LogManager.getLogger(StepScheduler.class);
+
+    private static final double COST_SMOOTHING = 0.1;           // EWMA weight of the newest step cost
+    private static final long MAX_LAG_NANOS = 1_000_000_000L;   // Re-anchor instead of bursting beyond this
+    private static final int MAX_CATCH_UP_STEPS = 100;          // Largest catch-up batch in real-time mode
+    private static final long LAG_REPORT_NANOS = 10_000_000_000L; // Lag statistics log interval
+
+    private volatile double targetFactor = 1.0; // <= 0 or infinite = unpaced
+    private double stepLength = 1.0;    // SUMO step length (s)
+    private long anchorNanos;           // Wall clock at the anchor
+    private double simSinceAnchor;      // Simulated seconds run since the anchor
+    private double costNanos = 0;       // EWMA of the step cost
+    private volatile boolean sustainable = true;
+    private volatile double achievableFactor = Double.POSITIVE_INFINITY;
+
+    // Real-time mode: wall-clock lockstep with catch-up batching and lag statistics
+    private volatile boolean realTime = false;
+    private long lagWindowStart;
+    private long lagSamples = 0;
+    private long lagTotalNanos = 0;
+    private long lagMaxNanos = 0;
+    private long catchUpBatches = 0;
+    private long catchUpSteps = 0;
+    private volatile String lagSummary = "";
+
+    /**
+     * Target real-time factor; takes effect from the current step (the schedule is re-anchored)
+     */
+    public void setTargetFactor(double factor) {
+        targetFactor = factor;
+        anchor(System.nanoTime());
+    }
+
+    public double getTargetFactor() {
+        return targetFactor;
+    }
+
+    /**
+     * Simulated seconds per step (Simulation.getDeltaT() of the session)
+     */
+    public void setStepLength(double seconds) {
+        stepLength = seconds > 0 ? seconds : 1.0;
+        anchor(System.nanoTime());
+    }
+
+    public double getStepLength() {
+        return stepLength;
+    }
+
+    /**
+     * Real-time mode: keep the absolute schedule when behind and catch up in batches
+     */
+    public void setRealTime(boolean enabled) {
+        realTime = enabled;
+        anchor(System.nanoTime());
+        lagSummary = "";
+    }
+
+    public boolean isRealTime() {
+        return realTime;
+    }
+
+    public boolean isPaced() {
+        return targetFactor > 0 && !Double.isInfinite(targetFactor);
+    }
+
+    /**
+     * Restart the schedule at the given wall-clock time (play, resume after pause, rate change,
+     * or after a command that moved simulation time)
+     */
+    public void anchor(long nowNanos) {
+        anchorNanos = nowNanos;
+        simSinceAnchor = 0;
+        resetLagWindow(nowNanos);
+    }
+
+    /**
+     * Wall-clock time at which the next step is due (now if unpaced)
+     */
+    public long nextDeadline(long nowNanos) {
+        if (!isPaced()) return nowNanos;
+        long deadline = anchorNanos + (long) (simSinceAnchor / targetFactor * 1e9);
+        if (!realTime && nowNanos - deadline > MAX_LAG_NANOS) {
+            // Far behind (e.g. a long command in between): continue from now rather than bursting
+            anchor(nowNanos);
+            return nowNanos;
+        }
+        return deadline;
+    }
+
+    /**
+     * Number of steps to run now that the next deadline has passed: one, or in real-time mode
+     * every step whose deadline lies in the past (capped), executed as one catch-up batch
+     */
+    public int takeDueSteps(long nowNanos) {
+        if (!realTime || !isPaced()) return 1;
+        long deadline = anchorNanos + (long) (simSinceAnchor / targetFactor * 1e9);
+        long lag = Math.max(0, nowNanos - deadline);
+        int steps = (int) Math.min(MAX_CATCH_UP_STEPS, 1 + (long) (lag / 1e9 * targetFactor / stepLength));
+
+        // 1. Lag statistics of this window
+        lagSamples++;
+        lagTotalNanos += lag;
+        lagMaxNanos = Math.max(lagMaxNanos, lag);
+        if (steps > 1) {
+            catchUpBatches++;
+            catchUpSteps += steps;
+        }
+
+        // 2. Periodic report
+        if (nowNanos - lagWindowStart >= LAG_REPORT_NANOS) {
+            lagSummary = String.format("lag mean %.1f ms, max %.1f ms, %d catch-up batches (%d steps)",
+                    lagTotalNanos / 1e6 / lagSamples, lagMaxNanos / 1e6, catchUpBatches, catchUpSteps);
+            logger.info("Real-time {}x over the last {} s: {}", targetFactor,
+                    (nowNanos - lagWindowStart) / 1_000_000_000L, lagSummary);
+            resetLagWindow(nowNanos);
+        }
+        return steps;
+    }
+
+    /**
+     * Lag statistics of the last completed report window (empty outside real-time mode)
+     */
+    public String getLagSummary() {
+        return lagSummary;
+    }
+
+    private void resetLagWindow(long nowNanos) {
+        lagWindowStart = nowNanos;
+        lagSamples = 0;
+        lagTotalNanos = 0;
+        lagMaxNanos = 0;
+        catchUpBatches = 0;
+        catchUpSteps = 0;
+    }
+
+    /**
+     * Record a finished step: its measured cost and the simulated time it advanced
+     */
+    public void stepDone(long stepCostNanos, int steps) {
+        if (!isPaced()) {
+            sustainable = true; // Unpaced runs (batched) have no target to miss
+            return;
+        }
+        simSinceAnchor += steps * stepLength;
+        double perStep = (double) stepCostNanos / Math.max(1, steps);
+        costNanos = costNanos == 0 ? perStep : costNanos + COST_SMOOTHING * (perStep - costNanos);
+        achievableFactor = costNanos > 0 ? stepLength * 1e9 / costNanos : Double.POSITIVE_INFINITY;
+
+        // Report transitions only, so a slow network does not flood the log
+        boolean canSustain = achievableFactor >= targetFactor;
+        if (canSustain != sustainable) {
+            sustainable = canSustain;
+            if (canSustain) {
+                logger.info("Real-time factor {}x is sustained again", targetFactor);
+            } else {
+                logger.warn("Real-time factor {}x cannot be sustained: a step costs {} ms (max {}x)",
+                        targetFactor, String.format("%.1f", costNanos / 1e6), String.format("%.2f", achievableFactor));
+            }
+        }
+    }
+
+    /**
+     * Whether the measured step cost allows the target factor
+     */
+    public boolean isSustainable() {
+        return sustainable;
+    }
+
+    /**
+     * Highest real-time factor the measured step cost allows
+     */
+    public double getAchievableFactor() {
+        return achievableFactor;
+    }
+}
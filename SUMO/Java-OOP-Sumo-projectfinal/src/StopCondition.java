@@ -0,0 +1,104 @@
+/**
+ * Immutable stop condition for continuous runs: the runner pauses as soon as it is reached.
+ * Batched stepping also uses it to clamp a batch, so a run never overshoots the end time or step count,
+ * and to end a batch on the step after which no vehicles are left.
+ */
+public final class StopCondition {
+    public enum Type {
+        NONE("None"),
+        END_TIME("End Time (s)"),
+        NO_VEHICLES("No Vehicles Left"),
+        STEP_COUNT("Step Count");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static final StopCondition NONE = new StopCondition(Type.NONE, 0);
+
+    private final Type type;
+    private final double value; // End time in seconds or step count (unused for NONE/NO_VEHICLES)
+
+    private StopCondition(Type type, double value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public static StopCondition endTime(double seconds) {
+        return new StopCondition(Type.END_TIME, seconds);
+    }
+
+    /**
+     * Stop once no vehicle is running or still waiting to be inserted (SUMO's min expected number is 0)
+     */
+    public static StopCondition noVehicles() {
+        return new StopCondition(Type.NO_VEHICLES, 0);
+    }
+
+    public static StopCondition stepCount(long steps) {
+        return new StopCondition(Type.STEP_COUNT, steps);
+    }
+
+    /**
+     * Build a condition from the UI selection; the value is ignored where the type has none
+     */
+    public static StopCondition of(Type type, double value) {
+        return switch (type) {
+            case NONE -> NONE;
+            case END_TIME -> endTime(value);
+            case NO_VEHICLES -> noVehicles();
+            case STEP_COUNT -> stepCount((long) value);
+        };
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean needsExpectedVehicles() {
+        return type == Type.NO_VEHICLES;
+    }
+
+    /**
+     * Whether the run is finished (expectedVehicles is only read for NO_VEHICLES)
+     */
+    public boolean isReached(double simTime, long steps, int expectedVehicles) {
+        return switch (type) {
+            case NONE -> false;
+            case END_TIME -> simTime >= value;
+            case NO_VEHICLES -> expectedVehicles <= 0;
+            case STEP_COUNT -> steps >= value;
+        };
+    }
+
+    /**
+     * Largest batch that does not step past the condition (at least one step). NO_VEHICLES cannot be
+     * known in advance; batches check it after every step (needsExpectedVehicles()).
+     */
+    public int limitBatch(int batchSteps, double simTime, long steps, double deltaT) {
+        double remaining = switch (type) {
+            case END_TIME -> Math.ceil((value - simTime) / deltaT - 1e-9);
+            case STEP_COUNT -> value - steps;
+            default -> batchSteps;
+        };
+        return (int) Math.max(1, Math.min(batchSteps, remaining));
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case NONE -> "none";
+            case END_TIME -> "simulation time " + value + " s";
+            case NO_VEHICLES -> "no vehicles left";
+            case STEP_COUNT -> (long) value + " steps";
+        };
+    }
+}
@@ -1,14 +1,12 @@
 import org.eclipse.sumo.libtraci.*;
-import org.eclipse.sumo.libtraci.Edge;
 
-import java.awt.BasicStroke;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -17,11 +15,6 @@ import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.sumo.libtraci.Simulation;
-import org.eclipse.sumo.libtraci.Vehicle;
-import org.eclipse.sumo.libtraci.TrafficLight;
-import org.eclipse.sumo.libtraci.Lane;
-import org.eclipse.sumo.libtraci.StringVector;
 import org.eclipse.sumo.libtraci.TraCIPosition;
 import org.eclipse.sumo.libtraci.TraCIPositionVector;
 
@@ -29,7 +22,7 @@ import org.eclipse.sumo.libtraci.TraCIPositionVector;
  * Business logic service class for SUMO simulation
  * Encapsulates core business logic, decouples from UI layer, and provides service interfaces for UI calls
  */
-public class SumoBusinessService {
+public class SumoBusinessService implements SimulationListener {
     // Reference to main UI frame (only for state update and config retrieval, no UI logic intrusion)
     private final SumoMainFrame mainFrame;
     private static final Logger logger = LogManager.getLogger(SumoBusinessService.class);
@@ -41,26 +34,28 @@ public class SumoBusinessService {
     private boolean showVehicleLabel = true; // Vehicle label display toggle
     private boolean showTLStatus = true; // Traffic light status display toggle
 
-    // Core simulation data statistics variables
-    private int totalSteps = 0; // Total simulation steps
-    private long totalVehicleDistance = 0; // Total distance traveled by all vehicles (meters)
-    private long totalVehicleTime = 0; // Total travel time for all vehicles (seconds)
-    private static final double CONGESTION_THRESHOLD_KMH = 5.0; // Congestion speed threshold (km/h)
-
-    // Simulation Data
-    private SimulationData lastData;
     private boolean isTranslateMode = false;
     private int translateX = 0;
     private int translateY = 0;
     private Point dragStartPos = null;
+    private static final Color ROAD_COLOR = new Color(180, 180, 180); // SUMO's light gray road style
 
-    private TraCIPositionVector sumoMapBoundary; // Map boundary stored in TraCIPositionVector
-    private Map<String, List<List<TraCIPosition>>> edgeLaneShapesCache = new HashMap<>(); // Edge -> all lane shapes cache
-
+    // TraCI session, simulation thread and captured data (Swing-free; this class is its GUI listener)
+    private final SimulationEngine engine = new SimulationEngine(this);
+    private final RateMeter frameMeter = new RateMeter(); // Achieved map frames per second
 
     // Filter
     private String filterMode = "ALL";
 
+    // Paint-time instrumentation (averages logged at debug level)
+    private final PaintStats paintStats = new PaintStats();
+    // Road raster of the current zoom, rendered in the background
+    private final RoadLayerCache roadLayerCache = new RoadLayerCache(ROAD_COLOR, this::repaintMapLater);
+    // Tiled road layer for zoom levels at which the whole raster would be too large
+    private final RoadTilePyramid roadTiles = new RoadTilePyramid(ROAD_COLOR, this::repaintMapLater);
+    private final SignalPainter signalPainter = new SignalPainter(); // Signal heads from the precomputed tables
+    private final VehiclePainter vehiclePainter = new VehiclePainter(this::vehiclePassesFilter); // Batched vehicle glyphs
+
 
     /**
      * Initialize business service with reference to main UI frame
@@ -184,20 +179,11 @@ public class SumoBusinessService {
         return (JPanel) comp;
     }
 
-    /**
-     * Preload road network data (lane shapes) into cache for improved drawing performance
-     */
-    private void preloadRoadNetworkData() {
-        try {
-            StringVector edgeIds = Edge.getIDList();
-            for (String edgeId : edgeIds) {
-                List<List<TraCIPosition>> laneShapes = getAllLaneShapes(edgeId);
-                edgeLaneShapesCache.put(edgeId, laneShapes);
-            }
-            logger.info("Road network data preloaded: {} edges", edgeIds.size());
-        } catch (Exception e) {
-            logger.error("Failed to preload road network data: {}", e.getMessage());
-        }
+    private void repaintMapLater() {
+        SwingUtilities.invokeLater(() -> {
+            JPanel mapCanvas = getMapCanvas();
+            if (mapCanvas != null) mapCanvas.repaint();
+        });
     }
 
     /**
@@ -225,38 +211,7 @@ public class SumoBusinessService {
         // 3. Heavy IO & Startup in background thread to keep UI responsive
         new Thread(() -> {
             try {
-                // Parse network file path from SUMO config
-                // We do this inside the thread as it involves XML parsing (IO bound)
-                String netFilePath = SumoCfgParser.parseNetFilePath(configPath);
-                if (!new File(netFilePath).exists()) {
-                    throw new IOException("Network file defined in config does not exist: " + netFilePath);
-                }
-
-                // Prepare command line arguments for TraCI
-                // "-c" is sufficient as the config file points to all other required files
-                String[] args = {
-                        sumoPath,
-                        "-c", configPath,
-                        "--start"
-                };
-
-                logger.debug("SUMO command: {}", String.join(" ", args));
-
-                // Native Library Loading & Process Start
-                Simulation.preloadLibraries();
-                Simulation.start(new StringVector(args));
-
-                // Retrieve map dimensions for coordinate mapping and centering
-                sumoMapBoundary = Simulation.getNetBoundary();
-
-                // Update UI components on the Event Dispatch Thread (EDT)
-                SwingUtilities.invokeLater(() -> {
-                    mainFrame.updateSumoConnectionStatus(true);
-                    preloadRoadNetworkData(); // Cache static road geometry
-                    initMapPanListener();      // Enable interactive map controls
-                    logger.info("SUMO TraCI connection established successfully!");
-                });
-
+                engine.start(sumoPath, configPath);
             } catch (Exception e) {
                 logger.error("SUMO startup failed: {}", e.getMessage());
                 SwingUtilities.invokeLater(() ->
@@ -282,10 +237,12 @@ public class SumoBusinessService {
             }
 
             // 3. Terminate the TraCI session and close the SUMO-GUI process
-            Simulation.close();
+            engine.close();
 
-            // 4. Reset internal map state (zoom, offsets) to initial values
+            // 4. Reset internal map state (zoom, offsets) to initial values and drop the road raster
             resetMapView();
+            roadLayerCache.flush();
+            roadTiles.flush();
 
             // 5. Update UI components to reflect the disconnected state
             mainFrame.updateSumoConnectionStatus(false);
@@ -300,10 +257,7 @@ public class SumoBusinessService {
     }
 
     /**
-     * Execute single simulation step and update statistical data
-     */
-    /**
-     * Advances the simulation by a single time step and updates statistics
+     * Advances the simulation by a single time step (queued on the simulation thread)
      */
     public void stepSimulation() {
         // 1.Ensure TraCI connection is active before proceeding
@@ -311,30 +265,130 @@ public class SumoBusinessService {
             JOptionPane.showMessageDialog(mainFrame, "Please connect to SUMO first!", "Prompt", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        engine.stepOnce();
+    }
 
-        try {
-            // 2. Execute one simulation step (typically 1 second in SUMO)
-            Simulation.step();
-            totalSteps++;
-            logger.info("Simulation progressed to step: {}", totalSteps);
-            // 3. Trigger UI update with newly calculated traffic data
-            updateSimulationData();
-        } catch (Exception e) {
-            // Simplified error message retrieval using e.toString() to avoid manual null checks
-            String errorMsg = "Single-step failed: " + e.toString();
-            JOptionPane.showMessageDialog(mainFrame, errorMsg, "Error", JOptionPane.ERROR_MESSAGE);
-            logger.error(errorMsg);
-            // 4. Critical: Handle session interruption (e.g., SUMO-GUI closed by user)
-            // Check for "Connection reset" or "Broken pipe" which indicate socket closure
-            if (e.getMessage() != null && (e.getMessage().contains("Connection reset") || e.getMessage().contains("pipe"))) {
-                mainFrame.updateSumoConnectionStatus(false);
-                logger.warn("SUMO TraCI connection has been interrupted and marked as disconnected.");
-            }
+    /**
+     * Start stepping continuously on the simulation thread
+     */
+    public void startContinuousSimulation() {
+        engine.play();
+    }
+
+    /**
+     * Pause continuous stepping (a step in progress still completes and is published)
+     */
+    public void pauseContinuousSimulation() {
+        engine.pause();
+    }
+
+    /**
+     * Target real-time factor of continuous mode (simulated seconds per wall-clock second)
+     */
+    public void setRealTimeFactor(double factor) {
+        engine.setRealTimeFactor(factor);
+    }
+
+    /**
+     * Wall-clock lockstep with catch-up batching (see SimulationEngine.setRealTimeMode)
+     */
+    public void setRealTimeMode(boolean enabled) {
+        engine.setRealTimeMode(enabled);
+    }
+
+    /**
+     * Whether the target real-time factor is being sustained
+     */
+    public boolean isPacingSustainable() {
+        return engine.isPacingSustainable();
+    }
+
+    /**
+     * Highest real-time factor the measured step cost allows
+     */
+    public double getAchievableRealTimeFactor() {
+        return engine.getAchievableRealTimeFactor();
+    }
+
+    /**
+     * Unthrottled continuous mode: no pacing, steps are executed in batches between snapshots
+     */
+    public void setMaxSpeedMode(boolean enabled) {
+        engine.setMaxSpeedMode(enabled);
+    }
+
+    /**
+     * How often a max-speed run collects statistics and publishes a snapshot
+     */
+    public void setBatchSampling(StepBatcher sampling) {
+        engine.setBatchSampling(sampling);
+    }
+
+    /**
+     * Condition at which continuous runs pause by themselves
+     */
+    public void setStopCondition(StopCondition condition) {
+        engine.setStopCondition(condition);
+    }
+
+    /**
+     * Jump to a step of the timeline (rewind via checkpoints, or fast-forward); pauses a continuous run
+     */
+    public void seekTo(int step) {
+        if (mainFrame.getisContinuousRunning()) {
+            mainFrame.stopContinuousSimulation();
         }
+        logger.info("Seeking timeline to step {}", step);
+        engine.seekTo(step);
+    }
+
+    /**
+     * Furthest step reached in this session (upper end of the timeline)
+     */
+    public int getFurthestStep() {
+        return engine.getFurthestStep();
+    }
+
+    /**
+     * Queue policy between the step/fetch and aggregate stages (block or drop oldest)
+     */
+    public void setBackpressure(PipelineStage.Backpressure backpressure) {
+        engine.setBackpressure(backpressure);
     }
 
     /**
-     * Reset simulation to initial state (restart SUMO and clear statistics)
+     * Per-stage latency summary since the previous call, with the frames dropped so far
+     */
+    public String samplePipelineStats() {
+        String lag = engine.getLagSummary();
+        return engine.getPipelineStats().sample() + ", dropped " + engine.getDroppedFrames()
+                + (lag.isEmpty() ? "" : "; real-time " + lag);
+    }
+
+    /**
+     * Latest published snapshot (polled by the UI render clock)
+     */
+    public WorldSnapshot getSnapshot() {
+        return engine.getSnapshot();
+    }
+
+    /**
+     * Achieved simulation steps per second since the previous call
+     */
+    public double sampleStepRate() {
+        return engine.sampleStepRate();
+    }
+
+    /**
+     * Achieved map frames per second since the previous call
+     */
+    public double sampleFrameRate() {
+        return frameMeter.sample();
+    }
+
+    /**
+     * Reset simulation to initial state and clear statistics: the state saved at connect is reloaded
+     * in the running SUMO process; SUMO is only restarted if that fails
      */
     public void resetSimulation() {
         // 1.  Ensure connection exists before attempting reset
@@ -353,132 +407,48 @@ public class SumoBusinessService {
             mainFrame.stopContinuousSimulation();
         }
 
-        // 3. Execute restart in background thread to keep UI responsive
-        new Thread(() -> {
-            try {
-                // Close existing TraCI session and kill the SUMO process
-                Simulation.close();
-
-                // Prepare arguments: Use config path as the primary source of truth
-                String[] args = {
-                        mainFrame.getSumoGuiPath(),
-                        "-c", mainFrame.getConfigPath(),
-                        "--start" // Ensures the new simulation window starts automatically
-                };
-
-                // Restart the simulation engine
-                Simulation.start(new StringVector(args));
-
-                // 4. State Reset: Zero out internal counters and statistics
-                totalSteps = 0;
-                totalVehicleDistance = 0;
-                totalVehicleTime = 0;
-
-                // 5. Post-reset UI Sync: Refresh dashboard with initial data
-                SwingUtilities.invokeLater(() -> {
-                    logger.info("The simulation has been reset to its initial state successfully.");
-                    updateSimulationData(); // Refresh labels with zeroed stats
-                });
-
-            } catch (Exception e) {
-                String errorMsg = "Reset failed: " + e.toString();
-                logger.error(errorMsg);
-                SwingUtilities.invokeLater(() ->
-                        JOptionPane.showMessageDialog(mainFrame, errorMsg, "Error", JOptionPane.ERROR_MESSAGE)
-                );
-            }
-        }).start();
+        // 3. Restore the initial state on the simulation thread; the dashboard shows the zeroed stats on the next render tick
+        engine.reset(mainFrame.getSumoGuiPath(), mainFrame.getConfigPath());
     }
-    /**
-     * Core data processing method: Fetch simulation data, calculate statistics, and update UI
-     */
-    private void updateSimulationData() {
-        try {
-            // 1. Fetch current basic simulation environment parameters
-            List<String> vehicleIds = Vehicle.getIDList();
-            int vehicleTotal = vehicleIds.size();
-            int vehicleRunning = 0;
-            int vehicleCongested = 0;
-            double currentSimTime = Simulation.getTime();
-
-            // Process vehicle statistics
-            for (String vehicleId : vehicleIds) {
-                try {
-                    double speedMs = Vehicle.getSpeed(vehicleId);
-
-                    // Redundancy Clean: Moved calculations outside the loop if they aren't used for filtering
-                    // Accumulate distance and time for average speed (Global stats)
-                    double vehicleDistance = Vehicle.getDistance(vehicleId);
-                    double departTime = Vehicle.getDeparture(vehicleId);
-
-                    totalVehicleDistance += Math.max(0, vehicleDistance);
-                    totalVehicleTime += Math.max(0, currentSimTime - departTime);
-
-                    // Vehicle state classification using raw m/s to avoid repeated float multiplication
-                    if (speedMs > 0) {
-                        vehicleRunning++;
-                        // Convert threshold to m/s once or compare in km/h only when needed
-                        if (speedMs * 3.6 < CONGESTION_THRESHOLD_KMH) {
-                            vehicleCongested++;
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.warn("Skip vehicle {}: {}", vehicleId, e.getMessage());
-                }
-            }
-
-            // 2. Fetch and deduplicate traffic light data
-            List<String> tlIds = TrafficLight.getIDList();
-            int tlTotal = 0, tlRed = 0, tlGreen = 0, tlYellow = 0;
-
-            for (String tlId : tlIds) {
-                try {
-                    StringVector lanes = TrafficLight.getControlledLanes(tlId);
-                    String state = TrafficLight.getRedYellowGreenState(tlId).toLowerCase();
-
-                    // Use a local Set for Edge-based deduplication per traffic light controller
-                    Set<String> countedEdges = new HashSet<>();
-
-                    for (int i = 0; i < lanes.size() && i < state.length(); i++) {
-                        String edgeId = lanes.get(i).split("_")[0];
-
-                        if (countedEdges.add(edgeId)) { // HashSet.add returns false if item exists (More efficient)
-                            tlTotal++;
-                            switch (state.charAt(i)) {
-                                case 'g' -> tlGreen++;
-                                case 'y' -> tlYellow++;
-                                case 'r', 'u' -> tlRed++;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.warn("TL error {}: {}", tlId, e.getMessage());
-                }
-            }
 
-            // 3. Final metrics calculation (Normalization and Formatting)
-            double trafficEfficiency = vehicleTotal > 0 ? (double) vehicleRunning / vehicleTotal * 100 : 0.0;
-            double avgSpeed = (totalVehicleTime > 0) ?
-                    (totalVehicleDistance / 1000.0) / (totalVehicleTime / 3600.0) : 0.0;
+    // SimulationListener: engine callbacks arrive on engine threads and are handed over to the EDT
 
-            // Optimized time formatting: Using integer division and modulo
-            int totalSec = (int) currentSimTime;
-            String simulationTime = String.format("%02d:%02d:%02d",
-                    totalSec / 3600, (totalSec % 3600) / 60, totalSec % 60);
+    @Override
+    public void onConnected() {
+        // Update UI components on the Event Dispatch Thread (EDT); stepping is possible from here on
+        SwingUtilities.invokeLater(() -> {
+            mainFrame.updateSumoConnectionStatus(true);
+            initMapPanListener();      // Enable interactive map controls
+            logger.info("SUMO TraCI connection established successfully!");
+        });
+    }
 
-            // 4. Encapsulate and synchronize with UI
-            lastData = new SimulationData(
-                    vehicleTotal, vehicleRunning, vehicleCongested,
-                    tlTotal, tlRed, tlGreen, tlYellow,
-                    totalSteps, avgSpeed, trafficEfficiency,
-                    simulationTime
-            );
+    @Override
+    public void onGeometryChanged() {
+        repaintMapLater();
+    }
 
-            mainFrame.updateDashboard(lastData);
+    @Override
+    public void onStopConditionReached(StopCondition condition, WorldSnapshot snapshot) {
+        SwingUtilities.invokeLater(() -> {
+            if (mainFrame.getisContinuousRunning()) {
+                mainFrame.stopContinuousSimulation();
+            }
+        });
+    }
 
-        } catch (Exception e) {
-            logger.error("Global data update failure: {}", e.toString());
-        }
+    @Override
+    public void onError(String message, boolean connectionLost) {
+        SwingUtilities.invokeLater(() -> {
+            if (mainFrame.getisContinuousRunning()) {
+                mainFrame.stopContinuousSimulation();
+            }
+            JOptionPane.showMessageDialog(mainFrame, message, "Error", JOptionPane.ERROR_MESSAGE);
+            if (connectionLost) {
+                mainFrame.updateSumoConnectionStatus(false);
+                logger.warn("SUMO TraCI connection has been interrupted and marked as disconnected.");
+            }
+        });
     }
 
     /**
@@ -486,7 +456,8 @@ public class SumoBusinessService {
      */
     public void drawMap(Graphics g, Dimension canvasSize) {
         // 1. Skip drawing if no active connection or valid geometry data
-        if (!mainFrame.isConnected() || sumoMapBoundary.getValue().size() < 2) {
+        TraCIPositionVector sumoMapBoundary = engine.getMapBoundary();
+        if (!mainFrame.isConnected() || sumoMapBoundary == null || sumoMapBoundary.getValue().size() < 2) {
             return;
         }
 
@@ -509,14 +480,45 @@ public class SumoBusinessService {
             double offsetX = canvasSize.width / 2.0 - centerX * mapScale + translateX;
             double offsetY = canvasSize.height / 2.0 + centerY * mapScale + translateY;
 
+            // Remember the visible world area for the viewport subscription (applied on the next step)
+            Rectangle2D.Double visibleWorld = computeVisibleWorldRect(canvasSize, offsetX, offsetY);
+            engine.setVisibleWorldRect(visibleWorld);
+
+            // Read the published snapshot once so all layers show the same step
+            WorldSnapshot current = engine.getSnapshot();
+            RoadNetworkPreload roadPreload = engine.getRoadPreload();
+
+            // Execute layered rendering (Bottom to Top), timing each layer
+            long t0 = System.nanoTime();
+            RoadGeometryStore geometry = roadPreload.getGeometry();
+            // Static geometry once complete, blitted in screen space and re-blitted on pans:
+            // one raster of the whole network if it fits (and is rendered), else the visible tiles of the pyramid
+            boolean roadsRasterized = geometry != null;
+            if (roadsRasterized && !roadLayerCache.draw(g2d, geometry, mapScale, offsetX, offsetY)) {
+                roadTiles.draw(g2d, geometry, mapScale, offsetX, offsetY, canvasSize);
+            }
+
             // 3. Transformation Sequence
             g2d.translate(offsetX, offsetY);
             g2d.scale(mapScale, mapScale);
 
-            // Execute layered rendering (Bottom to Top)
-            drawRoadNetwork(g2d);   // Static geometry
-            drawTrafficLights(g2d); // Signal overlays
-            drawVehicles(g2d);      // Dynamic entities
+            if (!roadsRasterized) {
+                for (RoadGeometryStore chunk : roadPreload.getChunks()) {
+                    drawRoadNetwork(g2d, chunk, visibleWorld); // Vectors while still loading
+                }
+            }
+            long t1 = System.nanoTime();
+            drawTrafficLights(g2d, current); // Signal overlays
+            long t2 = System.nanoTime();
+            drawVehicles(g2d, current);      // Dynamic entities
+            long t3 = System.nanoTime();
+
+            paintStats.addLayer(PaintStats.ROADS, t1 - t0);
+            paintStats.addLayer(PaintStats.SIGNALS, t2 - t1);
+            paintStats.addLayer(PaintStats.VEHICLES, t3 - t2);
+            paintStats.endFrame(t3 - t0);
+            engine.getPipelineStats().record(PipelineStats.Stage.RENDER, t3 - t0);
+            frameMeter.mark();
 
         } catch (Exception e) {
             logger.warn("Map rendering interrupted: {}", e.getMessage());
@@ -524,161 +526,68 @@ public class SumoBusinessService {
             // Ensure the graphics context is restored even if an error occurs during drawing
             g2d.setTransform(originalTransform);
         }
+
+        // 4. Loading indicator in screen space until the whole road network is available
+        RoadNetworkPreload roadPreload = engine.getRoadPreload();
+        if (!roadPreload.isComplete()) {
+            drawPreloadProgress(g2d, canvasSize, roadPreload.getProgress());
+        }
     }
 
     /**
-     * Get all lane shapes for a given edge (supports multi-lane edges)
+     * Progress bar and label at the bottom of the canvas while road geometry is still loading
      */
-    private List<List<TraCIPosition>> getAllLaneShapes(String edgeId) {
-        List<List<TraCIPosition>> allLaneShapes = new ArrayList<>();
-        try {
-            int laneCount = Edge.getLaneNumber(edgeId); // Get number of lanes for the edge
-            for (int i = 0; i < laneCount; i++) {
-                String laneId = edgeId + "_" + i; // Lane ID format: edgeId_0, edgeId_1...
-                List<TraCIPosition> laneShape = Lane.getShape(laneId).getValue(); // Get lane geometry
-                allLaneShapes.add(laneShape);
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to get lane shapes: edge={}, msg={}", edgeId, e.getMessage());
-        }
-        return allLaneShapes;
+    private void drawPreloadProgress(Graphics2D g2d, Dimension canvasSize, double progress) {
+        int barWidth = Math.min(240, canvasSize.width - 20);
+        int x = (canvasSize.width - barWidth) / 2;
+        int y = canvasSize.height - 24;
+        g2d.setColor(new Color(255, 255, 255, 200));
+        g2d.fillRect(x - 6, y - 18, barWidth + 12, 30);
+        g2d.setColor(Color.DARK_GRAY);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        g2d.drawString(String.format("Loading road network... %d%%", (int) (progress * 100)), x, y - 4);
+        g2d.drawRect(x, y, barWidth, 6);
+        g2d.fillRect(x, y, (int) (barWidth * progress), 6);
     }
 
     /**
-     * Draw road network with realistic lane widths and SUMO-like color scheme
+     * Invert the map transformation for the canvas corners.
+     * World points are drawn at offset + mapScale * (world * mapScale), with the Y-axis inverted.
      */
-    private void drawRoadNetwork(Graphics2D g2d) {
-        try {
-            StringVector edgeIds = Edge.getIDList();
-            // Set default road color (matching SUMO's light gray style)
-            g2d.setColor(new Color(180, 180, 180));
-
-            for (String edgeId : edgeIds) {
-                // Retrieve geometry for all lanes belonging to this edge
-                List<List<TraCIPosition>> allLaneShapes = getAllLaneShapes(edgeId);
-
-                for (int laneIdx = 0; laneIdx < allLaneShapes.size(); laneIdx++) {
-                    List<TraCIPosition> laneShape = allLaneShapes.get(laneIdx);
-                    if (laneShape.size() < 2) continue;
-
-                    // 1. Coordinate Projection: Pre-allocate arrays for Polyline rendering
-                    int nPoints = laneShape.size();
-                    int[] xPoints = new int[nPoints];
-                    int[] yPoints = new int[nPoints];
-
-                    for (int j = 0; j < nPoints; j++) {
-                        TraCIPosition pos = laneShape.get(j);
-                        // Map simulation world coordinates to screen space
-                        xPoints[j] = (int) (pos.getX() * mapScale);
-                        // Critical: Invert Y-axis because SUMO Y grows upward, while UI Y grows downward
-                        yPoints[j] = (int) (-pos.getY() * mapScale);
-                    }
-
-                    // 2. Stroke Optimization:
-                    // We use the edge index to fetch lane width only once if possible (Logic assumed)
-                    String laneId = edgeId + "_" + laneIdx;
-                    double laneWidth = Lane.getWidth(laneId);
-
-                    // Scale physical lane width to pixel width, ensuring at least 1 pixel is visible
-                    float strokeWidth = Math.max((float) (laneWidth * mapScale), 1.0f);
-
-                    // 3. Dynamic Stroke Styling: Apply width to the Graphics context
-                    g2d.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                    g2d.drawPolyline(xPoints, yPoints, nPoints);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Road network rendering failed: {}", e.toString());
-        }
+    private Rectangle2D.Double computeVisibleWorldRect(Dimension canvasSize, double offsetX, double offsetY) {
+        double pixelsPerMeter = (double) mapScale * mapScale;
+        double minX = -offsetX / pixelsPerMeter;
+        double maxX = (canvasSize.width - offsetX) / pixelsPerMeter;
+        double maxY = offsetY / pixelsPerMeter;
+        double minY = (offsetY - canvasSize.height) / pixelsPerMeter;
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
     }
 
     /**
-     * Draw traffic lights with color-coded status (red/green/yellow) and optional ID labels
+     * Draw road network with realistic lane widths and SUMO-like color scheme.
+     * Lanes are pre-grouped by width, so one stroked path per width bucket covers the whole network;
+     * with a visible world area (null = everything) only the lanes in it are stroked.
      */
-    private void drawTrafficLights(Graphics2D g2d) {
-        List<String> tlIds = TrafficLight.getIDList();
+    private void drawRoadNetwork(Graphics2D g2d, RoadGeometryStore geometry, Rectangle2D visibleWorld) {
+        if (geometry.getBucketCount() == 0) return;
 
-        for (String tlId : tlIds) {
-            try {
-                StringVector lanes = TrafficLight.getControlledLanes(tlId);
-                String state = TrafficLight.getRedYellowGreenState(tlId).toLowerCase();
-
-                // Iterate through controlled lanes, synchronized with the state string
-                for (int i = 0; i < lanes.size() && i < state.length(); i++) {
-                    String laneId = lanes.get(i);
-                    char s = state.charAt(i);
-
-                    // 1. Get physical position (Prioritize using lane geometry)
-                    Point2D.Double pos = getSignalPosition(laneId);
-
-                    if (pos == null) {
-                        // Fallback: If lane shape is unavailable, use junction position with manual offset
-                        String node = Edge.getToJunction(laneId.split("_")[0]);
-                        TraCIPosition junc = Junction.getPosition(node);
-                        pos = new Point2D.Double(junc.getX() + (i-2)*2, junc.getY() + (i-2)*2);
-                    }
-
-                    // 2. Coordinate Transformation (Apply scale and invert Y-axis for screen rendering)
-                    int sx = (int) (pos.x * mapScale);
-                    int sy = (int) (-pos.y * mapScale);
-
-                    // Map SUMO state characters to UI colors using modern Switch expression
-                    g2d.setColor(switch (s) {
-                        case 'g' -> Color.GREEN;
-                        case 'y' -> Color.YELLOW;
-                        case 'r' -> Color.RED;
-                        default  -> Color.GRAY;
-                    });
-
-                    // Render the circular signal icon with a dynamic size clamped between 3 and 10px
-                    int size = Math.max(3, Math.min(10, (int)(6 * mapScale)));
-                    g2d.fillOval(sx - size/2, sy - size/2, size, size);
-
-                    // Draw a black outline for better contrast on the map
-                    g2d.setColor(Color.BLACK);
-                    g2d.drawOval(sx - size/2, sy - size/2, size - 1, size - 1);
-
-                    if (showTLStatus) {
-                        g2d.setFont(new Font("Arial", Font.PLAIN, Math.max(5, (int)(6 * mapScale))));
-                        g2d.drawString(laneId.split("_")[0], sx - 10, sy - 12);
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Draw error {}: {}", tlId, e.getMessage());
-            }
+        AffineTransform before = g2d.getTransform();
+        try {
+            // Paths are stored in world meters; one extra scale maps them onto the (x * mapScale) layer space
+            g2d.scale(mapScale, mapScale);
+            RoadPainter.paint(g2d, geometry, mapScale, ROAD_COLOR, visibleWorld);
+        } catch (Exception e) {
+            logger.error("Road network rendering failed: {}", e.toString());
+        } finally {
+            g2d.setTransform(before);
         }
     }
 
     /**
-     * Helper method for geometric calculations: calculates the signal position with lateral offset
+     * Draw traffic lights with color-coded status (red/green/yellow) and optional ID labels
      */
-    private Point2D.Double getSignalPosition(String laneId) {
-        try {
-            List<TraCIPosition> points = Lane.getShape(laneId).getValue();
-            if (points.size() < 2) return null;
-
-            // Use the last segment of the lane to determine direction and placement
-            TraCIPosition pLast = points.get(points.size() - 1);
-            TraCIPosition pPrev = points.get(points.size() - 2);
-
-            double dx = pLast.getX() - pPrev.getX();
-            double dy = pLast.getY() - pPrev.getY();
-            double len = Math.hypot(dx, dy);
-
-            // Calculate back-off position (place the light ~2 meters before the lane end)
-            double ratio = (len > 2.0) ? (2.0 / len) : 0;
-            double bx = pLast.getX() - ratio * dx;
-            double by = pLast.getY() - ratio * dy;
-
-            // Apply lateral offset (using normal vector) to prevent icons from overlapping at junctions
-            if (len > 0) {
-                bx += (-dy / len) * 1.5;
-                by += (dx / len) * 1.5;
-            }
-            return new Point2D.Double(bx, by);
-        } catch (Exception e) {
-            return null; // Return null if geometry data cannot be fetched
-        }
+    private void drawTrafficLights(Graphics2D g2d, WorldSnapshot current) {
+        signalPainter.paint(g2d, current, mapScale, showTLStatus);
     }
 
 
@@ -694,28 +603,20 @@ public class SumoBusinessService {
     /**
      * Checks whether a vehicle matches the currently selected filter mode
      */
-    private boolean vehiclePassesFilter(String id) {
-        try {
-            // Retrieve the current speed of the vehicle
-            double speed = Vehicle.getSpeed(id);
-
-            // Apply filtering logic based on the active filter mode
-            switch (filterMode) {
-                case "Running":
-                    // Vehicle is considered running if its speed is greater than zero
-                    return speed > 0;
-
-                case "Congested":
-                    // Vehicle is congested if it is moving slowly
-                    return speed > 0 && speed < 5;
-
-                default:
-                    // No filter applied: always include the vehicle
-                    return true;
-            }
-        } catch (Exception e) {
-            // Fail-safe behavior: include the vehicle if an error occurs
-            return true;
+    private boolean vehiclePassesFilter(double speed) {
+        // Apply filtering logic based on the active filter mode
+        switch (filterMode) {
+            case "Running":
+                // Vehicle is considered running if its speed is greater than zero
+                return speed > 0;
+
+            case "Congested":
+                // Vehicle is congested if it is moving slowly
+                return speed > 0 && speed < 5;
+
+            default:
+                // No filter applied: always include the vehicle
+                return true;
         }
     }
 
@@ -724,72 +625,9 @@ public class SumoBusinessService {
     /**
      * Draw vehicles with color-coded status (running/congested/static) and optional ID labels
      */
-    private void drawVehicles(Graphics2D g2d) {
-        List<String> vehicleIds = Vehicle.getIDList();
-
-        // Save the global transform to restore it after drawing all vehicles
-        AffineTransform globalTransform = g2d.getTransform();
-
-        for (String vehicleId : vehicleIds) {
-            // 1. Filtering Logic
-            if (!vehiclePassesFilter(vehicleId)) continue;
-
-            try {
-                TraCIPosition pos = Vehicle.getPosition(vehicleId);
-                double angle = Vehicle.getAngle(vehicleId); // Heading angle in degrees from SUMO
-                double speed = Vehicle.getSpeed(vehicleId);
-
-                // Map world coordinates to screen space
-                int x = (int) (pos.getX() * mapScale);
-                int y = (int) (-pos.getY() * mapScale);
-
-                // 2. Set vehicle color based on movement state
-                if (speed <= 0) {
-                    g2d.setColor(Color.GRAY);
-                } else {
-                    g2d.setColor(speed < 5 ? Color.ORANGE : Color.BLUE);
-                }
-
-                // 3. Apply Local Transformation for Rotation
-                // Save the current state before rotating this specific vehicle
-                AffineTransform localVehicleTransform = g2d.getTransform();
-
-                g2d.translate(x, y); // Move origin to the vehicle's position
-                // SUMO angle is clockwise from North (0°).
-                // Java's rotate() is clockwise from positive X-axis.
-                // Usually, we subtract 90 degrees or adjust based on your map orientation.
-                g2d.rotate(Math.toRadians(angle));
-
-                // 4. Draw the Rotated Vehicle Shape (Triangle)
-                // Now we draw relative to (0,0) because the canvas is translated and rotated
-                int size = Math.max(2, (int) (8 * mapScale));
-
-                // Triangle pointing "Forward" (upward in local coordinate system)
-                int[] xs = {0, -size / 2, size / 2};
-                int[] ys = {-size, size / 2, size / 2};
-
-                g2d.fillPolygon(xs, ys, 3);
-                g2d.setColor(Color.BLACK);
-                g2d.drawPolygon(xs, ys, 3);
-
-                // 5. Restore Local Transformation for the next vehicle
-                g2d.setTransform(localVehicleTransform);
-
-                // 6. Draw Label (Optional: usually not rotated for readability)
-                if (showVehicleLabel) {
-                    g2d.setColor(Color.BLACK);
-                    int fontSize = Math.max(5, (int) (6 * mapScale));
-                    g2d.setFont(new Font("Arial", Font.PLAIN, fontSize));
-                    g2d.drawString(vehicleId, x + size, y - size);
-                }
-
-            } catch (Exception e) {
-                // Silently skip to maintain smooth simulation rendering
-                continue;
-            }
-        }
-        // Final restoration of the original coordinate system
-        g2d.setTransform(globalTransform);
+    private void drawVehicles(Graphics2D g2d, WorldSnapshot current) {
+        // Render from the published snapshot (no per-vehicle TraCI calls), batched by status color
+        vehiclePainter.paint(g2d, current.getVisibleVehicles(), mapScale, showVehicleLabel);
     }
 
 
@@ -801,51 +639,7 @@ public class SumoBusinessService {
     public void injectVehiclesAdvanced(String edgeId, String routeId,
                                        double speedKmh,
                                        int batchCount) {
-        try {
-            // Create the specified number of vehicles
-            for (int i = 0; i < batchCount; i++) {
-                // Generate a unique vehicle ID using timestamp and index
-                String vehId = "veh" + System.currentTimeMillis() + "_" + i;
-                String typeId = "DEFAULT_VEHTYPE";
-                String departLane = "0";
-
-                // Build lane ID for the target edge (default lane 0)
-                String laneId = edgeId + "_0";
-
-                // Add the vehicle to the simulation with immediate departure
-                Vehicle.add(vehId,
-                        routeId,
-                        typeId,
-                        "now",
-                        departLane,
-                        "free",
-                        "0.0",
-                        "current",
-                        "0",
-                        "0");
-
-                // Try to move the vehicle to the specified edge and lane
-                try {
-                    Vehicle.moveTo(vehId, laneId, 0.0);
-                } catch (Exception e1) {
-                    // Fallback: try an alternative lane if lane 0 does not exist
-                    logger.info("Lane 0 not found -> try Edge _1");
-                    try {
-                        Vehicle.moveTo(vehId, edgeId + "_1", 0.0);
-                    } catch (Exception e2) {
-                        // Final fallback: vehicle remains at default position
-                        logger.info("Edge have no valid Lanes → Vehicle set on Default-Position");
-                    }
-                }
-                // Log successful vehicle creation
-                logger.info("Created vehicle: " + vehId);
-            }
-
-        } catch (Exception e) {
-            // Log and print any unexpected errors during vehicle injection
-            e.printStackTrace();
-            logger.error("Error injecting vehicles: " + e.getMessage());
-        }
+        engine.injectVehicles(edgeId, routeId, batchCount);
     }
 
     /**
@@ -855,15 +649,16 @@ public class SumoBusinessService {
         List<SumoTrafficLights> tlList = new ArrayList<>();
 
         try {
-            List<String> tlIDs = TrafficLight.getIDList();
-            for (String id : tlIDs) {
+            // Controlled lanes come from the static topology index (no TraCI calls)
+            TrafficLightIndex index = engine.getTrafficLightIndex();
+            for (int t = 0; t < index.size(); t++) {
 
-                List<String> lanes = TrafficLight.getControlledLanes(id);
-                if (lanes == null || lanes.isEmpty()){
+                List<String> lanes = index.getControlledLanes(t);
+                if (lanes.isEmpty()){
                     continue;
                 }
 
-                SumoTrafficLights tlObj = new SumoTrafficLights(id, lanes);
+                SumoTrafficLights tlObj = new SumoTrafficLights(index.getTlId(t), lanes);
 
                 tlList.add(tlObj);
             }
@@ -931,6 +726,15 @@ public class SumoBusinessService {
         logger.info("Map view has been reset");
     }
 
+    /**
+     * Toggle viewport mode (only transfer vehicles inside the visible map area, applied on the next step)
+     */
+    public void toggleViewportMode() {
+        boolean enabled = !engine.isViewportMode();
+        engine.setViewportMode(enabled);
+        logger.info("Viewport-only vehicle retrieval: {}", enabled ? "Enabled" : "Disabled");
+    }
+
     /**
      * Toggle vehicle label display (show/hide vehicle IDs on map)
      */
@@ -966,42 +770,36 @@ public class SumoBusinessService {
         }
 
         try {
-            List<String> vehicleIds = Vehicle.getIDList();
-            if (vehicleIds.isEmpty()) {
+            WorldSnapshot current = engine.getSnapshot();
+            WorldSnapshot.Vehicles vehicles = current.getVehicles();
+            if (vehicles.size() == 0) {
                 JOptionPane.showMessageDialog(mainFrame, "No vehicle data available!", "Prompt", JOptionPane.INFORMATION_MESSAGE);
                 return;
             }
 
-            // 2. Pre-fetch Simulation Time: Call TraCI once instead of inside the loop
-            double currentTime = Simulation.getTime();
+            // 2. Simulation time of the snapshot the rows belong to
+            double currentTime = current.getSimTime();
 
             // Optimize StringBuilder with an estimated capacity to prevent multiple re-allocations
-            StringBuilder detail = new StringBuilder(vehicleIds.size() * 80);
+            StringBuilder detail = new StringBuilder(vehicles.size() * 80);
 
             detail.append("==================== Vehicle Detailed Information ====================\n");
-            detail.append(String.format("Total Active Vehicles: %d | Time: %.1fs\n", vehicleIds.size(), currentTime));
+            detail.append(String.format("Total Active Vehicles: %d | Time: %.1fs\n", vehicles.size(), currentTime));
             detail.append("----------------------------------------------------------------------\n");
             detail.append(String.format("%-12s | %-10s | %-12s | %-12s | %-12s\n",
                     "Vehicle ID", "Status", "Speed(km/h)", "Distance(m)", "TravelTime(s)"));
             detail.append("----------------------------------------------------------------------\n");
 
-            for (String vehicleId : vehicleIds) {
-                try {
-                    // Fetch basic state in one go
-                    double speedMs = Vehicle.getSpeed(vehicleId);
-                    double distance = Vehicle.getDistance(vehicleId);
-                    double departTime = Vehicle.getDeparture(vehicleId);
-
-                    // 3. Logic Optimization: Simplified status check and travel time calculation
-                    double travelTime = Math.max(0, currentTime - departTime);
-                    String status = (speedMs <= 0) ? "Static" : (speedMs < 1.38 ? "Congested" : "Running"); // 1.38m/s ≈ 5km/h
-
-                    detail.append(String.format("%-12s | %-10s | %-12.1f | %-12.1f | %-12.1f\n",
-                            vehicleId, status, speedMs * 3.6, distance, travelTime));
-                } catch (Exception inner) {
-                    // If a specific vehicle leaves during processing, skip it
-                    continue;
-                }
+            for (int i = 0; i < vehicles.size(); i++) {
+                // Values come from the published snapshot
+                double speedMs = vehicles.getSpeed(i);
+
+                // 3. Logic Optimization: Simplified status check and travel time calculation
+                double travelTime = Math.max(0, currentTime - vehicles.getDeparture(i));
+                String status = (speedMs <= 0) ? "Static" : (speedMs < 1.38 ? "Congested" : "Running"); // 1.38m/s ≈ 5km/h
+
+                detail.append(String.format("%-12s | %-10s | %-12.1f | %-12.1f | %-12.1f\n",
+                        vehicles.getId(i), status, speedMs * 3.6, vehicles.getDistance(i), travelTime));
             }
             detail.append("======================================================================\n");
 
@@ -1029,6 +827,7 @@ public class SumoBusinessService {
     public void exportSimulationStats() {
         try {
             // Ensure that simulation data is available before exporting
+            SimulationData lastData = engine.getSnapshot().getData();
             if (lastData == null) {
                 System.out.println("No simulation data collected yet — nothing to export.");
                 return;
@@ -1091,73 +890,12 @@ public class SumoBusinessService {
     }
 
     /**
-     * Get current simulation data and package into SimulationData object (for UI updates)
+     * Get current simulation data from the published snapshot (for UI updates)
      */
     public SimulationData getCurrentSimulationData() {
-        // 1. Efficiency Optimization:
-        // If updateSimulationData() was just called, return the cached lastData
-        // directly to avoid thousands of redundant TraCI socket calls.
-        if (lastData != null) {
-            return lastData;
-        }
-
-        // 2. Fallback Logic: (Only if lastData is null, use consistent logic)
-        try {
-            List<String> vehicleIds = Vehicle.getIDList();
-            int vehicleTotal = vehicleIds.size();
-            int vehicleRunning = 0;
-            int vehicleCongested = 0;
-
-            for (String vehicleId : vehicleIds) {
-                try {
-                    double speedMs = Vehicle.getSpeed(vehicleId);
-                    if (speedMs > 0) {
-                        vehicleRunning++;
-                        if (speedMs * 3.6 < CONGESTION_THRESHOLD_KMH) vehicleCongested++;
-                    }
-                } catch (Exception e) { continue; }
-            }
-
-            // 3. Traffic Light Logic (Must match the Edge-based deduplication)
-            List<String> tlIds = TrafficLight.getIDList();
-            int tlTotal = 0, tlRed = 0, tlGreen = 0, tlYellow = 0;
-
-            for (String tlId : tlIds) {
-                StringVector lanes = TrafficLight.getControlledLanes(tlId);
-                String state = TrafficLight.getRedYellowGreenState(tlId).toLowerCase();
-                Set<String> countedEdges = new HashSet<>();
-
-                for (int i = 0; i < lanes.size() && i < state.length(); i++) {
-                    String edgeId = lanes.get(i).split("_")[0];
-                    if (countedEdges.add(edgeId)) { // Deduplicate by edge
-                        tlTotal++;
-                        switch (state.charAt(i)) {
-                            case 'g' -> tlGreen++;
-                            case 'y' -> tlYellow++;
-                            case 'r', 'u' -> tlRed++;
-                        }
-                    }
-                }
-            }
-
-            // 4. Metrics Calculation (Consistent with global variables)
-            double trafficEfficiency = vehicleTotal > 0 ? (double) vehicleRunning / vehicleTotal * 100 : 0.0;
-            double avgSpeed = totalVehicleTime > 0 ? (totalVehicleDistance / 1000.0) / (totalVehicleTime / 3600.0) : 0.0;
-
-            double simTimeSec = Simulation.getTime();
-            String simulationTime = String.format("%02d:%02d:%02d",
-                    (int)simTimeSec/3600, (int)(simTimeSec%3600)/60, (int)(simTimeSec%60));
-
-            return new SimulationData(
-                    vehicleTotal, vehicleRunning, vehicleCongested,
-                    tlTotal, tlRed, tlGreen, tlYellow,
-                    totalSteps, avgSpeed, trafficEfficiency,
-                    simulationTime
-            );
-        } catch (Exception e) {
-            logger.error("Failed to fetch current simulation data: {}", e.getMessage());
-            return null;
-        }
+        // The snapshot is captured once per step; reading it costs no TraCI calls.
+        // Returns null before the first snapshot has been published.
+        return engine.getSnapshot().getData();
     }
 
     /**
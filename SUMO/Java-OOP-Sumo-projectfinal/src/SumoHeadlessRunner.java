@@ -0,0 +1,232 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless entry point for batch/regression runs: runs a .sumocfg to completion with the plain
+ * "sumo" binary (no Swing frame is created), streams the statistics of every published snapshot
+ * to a CSV file and prints a summary. The exit code is 0 if the run reached its stop condition.
+ *
+ * Usage: java SumoHeadlessRunner -c scenario.sumocfg [--sumo binary] [--out stats.csv]
+ *        [--sample-steps n | --sample-ms ms] [--end seconds | --steps n] [-- sumo options...]
+ * Everything after "--" is passed to SUMO unchanged (e.g. "-- --seed 7 --scale 1.5").
+ */
+public class SumoHeadlessRunner implements SimulationListener {
+    private static final Logger logger = LogManager.getLogger(SumoHeadlessRunner.class);
+
+    private static final String CSV_HEADER =
+            "step,sim_time_s,vehicles,running,congested,tl_total,tl_red,tl_green,tl_yellow,avg_speed_kmh,efficiency_pct";
+
+    private final BufferedWriter out;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile String failure;     // Error that ended the run (null = stop condition reached)
+    private volatile long rowsWritten = 0; // Written on the snapshot-aggregator thread only, read by main
+
+    private SumoHeadlessRunner(BufferedWriter out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("log4j.configurationFile") == null) {
+            System.setProperty("log4j.configurationFile", "resources/log4j2.xml");
+        }
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: SumoHeadlessRunner -c <scenario.sumocfg> [--sumo <binary>] [--out <stats.csv>]"
+                    + " [--sample-steps <n> | --sample-ms <ms>] [--end <seconds> | --steps <n>] [-- <sumo options>]");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Parse the arguments, run the scenario and return the process exit code
+     */
+    private static int run(String[] args) {
+        // 1. Command line options
+        String configPath = null;
+        String sumoBinary = defaultSumoBinary();
+        String outPath = null;
+        StepBatcher sampling = StepBatcher.everyMillis(1000);
+        StopCondition stop = null;
+        List<String> sumoOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                sumoOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-c", "--config" -> configPath = requireValue(args[i], value);
+                case "--sumo" -> sumoBinary = requireValue(args[i], value);
+                case "--out" -> outPath = requireValue(args[i], value);
+                case "--sample-steps" -> sampling = StepBatcher.everySteps(parseInt(args[i], value));
+                case "--sample-ms" -> sampling = StepBatcher.everyMillis(parseInt(args[i], value));
+                case "--end" -> stop = StopCondition.endTime(parseDouble(args[i], value));
+                case "--steps" -> stop = StopCondition.stepCount(parseInt(args[i], value));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++; // Every option takes a value
+        }
+        if (configPath == null) {
+            throw new IllegalArgumentException("Missing scenario: -c <scenario.sumocfg>");
+        }
+        File statsFile = outPath != null ? new File(outPath) : defaultStatsFile(configPath);
+
+        // 2. Run with the statistics streamed to disk
+        long wallStart = System.nanoTime();
+        SimulationEngine engine = null;
+        SumoHeadlessRunner runner;
+        try (BufferedWriter writer = Files.newBufferedWriter(createParent(statsFile).toPath(), StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            runner = new SumoHeadlessRunner(writer);
+            engine = new SimulationEngine(runner);
+            engine.setBatchSampling(sampling);
+            engine.setMaxSpeedMode(true);
+            engine.setCheckpointInterval(0); // Batch runs never rewind
+            engine.setRoadGeometryEnabled(false); // Nothing is drawn
+
+            logger.info("Headless run: {} with {} {}", configPath, sumoBinary, sumoOptions);
+            engine.start(sumoBinary, configPath, sumoOptions);
+
+            // Without an explicit condition: the configured end time, else until every vehicle arrived
+            if (stop == null) {
+                double endTime = engine.getConfiguredEndTime();
+                stop = endTime > 0 ? StopCondition.endTime(endTime) : StopCondition.noVehicles();
+            }
+            engine.setStopCondition(stop);
+            engine.play();
+            runner.finished.await();
+        } catch (Exception e) {
+            logger.error("Headless run failed: {}", e.toString());
+            System.err.println("Headless run failed: " + e);
+            closeQuietly(engine);
+            return 1;
+        }
+
+        // 3. Summary (the simulation thread is idle once the run has finished)
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        WorldSnapshot last = engine.getSnapshot();
+        VehicleRegistry registry = engine.getRegistry();
+        SimulationData data = last.getData();
+        System.out.println("==================== Headless Run Summary ====================");
+        System.out.println("Scenario:          " + configPath);
+        System.out.println("Result:            " + (runner.failure == null ? "stop condition reached (" + stop + ")"
+                : "failed: " + runner.failure));
+        System.out.printf(Locale.ROOT, "Simulation time:   %.1f s (%d steps)%n", last.getSimTime(), last.getStep());
+        System.out.printf(Locale.ROOT, "Wall time:         %.2f s (%.1f steps/s)%n",
+                wallSeconds, wallSeconds > 0 ? last.getStep() / wallSeconds : 0.0);
+        System.out.println("Departed/arrived:  " + registry.getDepartedTotal() + " / " + registry.getArrivedTotal());
+        System.out.printf(Locale.ROOT, "Distance driven:   %.1f km (%.1f km estimated for arriving vehicles since their last read)%n",
+                registry.getTotalDistance() / 1000.0, registry.getEstimatedDistance() / 1000.0);
+        System.out.printf(Locale.ROOT, "Average speed:     %.2f km/h%n", data != null ? data.getAvgSpeed() : 0.0);
+        System.out.println("Statistics:        " + statsFile.getAbsolutePath() + " (" + runner.rowsWritten + " rows)");
+        System.out.println("==============================================================");
+
+        closeQuietly(engine);
+        return runner.failure == null ? 0 : 1;
+    }
+
+    @Override
+    public void onConnected() {
+        logger.info("SUMO TraCI connection established (headless)");
+    }
+
+    @Override
+    public void onSnapshot(WorldSnapshot snapshot) {
+        SimulationData data = snapshot.getData();
+        if (data == null) return;
+        try {
+            out.write(String.format(Locale.ROOT, "%d,%.2f,%d,%d,%d,%d,%d,%d,%d,%.3f,%.2f",
+                    snapshot.getStep(), snapshot.getSimTime(),
+                    data.getVehicleTotal(), data.getVehicleRunning(), data.getVehicleCongested(),
+                    data.getTlTotal(), data.getTlRed(), data.getTlGreen(), data.getTlYellow(),
+                    data.getAvgSpeed(), data.getTrafficEfficiency()));
+            out.newLine();
+            rowsWritten++;
+        } catch (IOException e) {
+            onError("Failed to write statistics: " + e.getMessage(), false);
+        }
+    }
+
+    @Override
+    public void onStopConditionReached(StopCondition condition, WorldSnapshot snapshot) {
+        finished.countDown();
+    }
+
+    @Override
+    public void onError(String message, boolean connectionLost) {
+        failure = message;
+        finished.countDown();
+    }
+
+    /**
+     * $SUMO_HOME/bin/sumo if SUMO_HOME is set, otherwise "sumo" from the PATH
+     */
+    private static String defaultSumoBinary() {
+        String sumoHome = System.getenv("SUMO_HOME");
+        if (sumoHome != null) {
+            File binary = new File(new File(sumoHome, "bin"), "sumo");
+            if (binary.canExecute()) return binary.getPath();
+        }
+        return "sumo";
+    }
+
+    /**
+     * exports/&lt;scenario&gt;_stats_&lt;timestamp&gt;.csv, next to the GUI's CSV exports
+     */
+    private static File defaultStatsFile(String configPath) {
+        String scenario = new File(configPath).getName().replace(".sumocfg", "");
+        String timestamp = java.time.LocalDateTime.now()
+                .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return new File("exports", scenario + "_stats_" + timestamp + ".csv");
+    }
+
+    private static File createParent(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) Files.createDirectories(parent.toPath());
+        return file;
+    }
+
+    private static void closeQuietly(SimulationEngine engine) {
+        if (engine == null || !engine.isOpen()) return; // SUMO never came up
+        try {
+            engine.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close SUMO connection: {}", e.toString());
+        }
+    }
+
+    private static String requireValue(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    private static int parseInt(String option, String value) {
+        try {
+            return Integer.parseInt(requireValue(option, value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String option, String value) {
+        try {
+            return Double.parseDouble(requireValue(option, value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
-import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
@@ -46,6 +45,12 @@ public class SumoMainFrame extends JFrame {
     private JButton tlControlBtn;
     private JSlider speedSlider;
     private JLabel speedLabel;
+    private JCheckBox maxSpeedBox; // Unthrottled, batched continuous mode
+    private JCheckBox realTimeBox; // Wall-clock lockstep at the slider's factor
+    private JComboBox<String> sampleBox;
+    private JComboBox<PipelineStage.Backpressure> backpressureBox;
+    private JComboBox<StopCondition.Type> stopTypeBox;
+    private JTextField stopValueField;
     private JTextArea logArea;
     private JScrollPane logScroll;
 
@@ -53,7 +58,7 @@ public class SumoMainFrame extends JFrame {
     private JPanel rightPanel, mapSubPanel, dashboardSubPanel;
     private JPanel mapCanvas; // Panel for rendering simulation map
     private JToolBar mapToolBar;
-    private JButton zoomInBtn, zoomOutBtn, transBtn, resetViewBtn, showVehicleLabelBtn, showTLLabelBtn;
+    private JButton zoomInBtn, zoomOutBtn, transBtn, resetViewBtn, showVehicleLabelBtn, showTLLabelBtn, viewportBtn;
     private JLabel simulationTimeLabel;
 
     // Data dashboard components
@@ -67,8 +72,23 @@ public class SumoMainFrame extends JFrame {
     private String configPath;
     private int traciPort = 8813;
     private boolean isConnected = false;
-    private boolean isContinuousRunning = false;
-    private Timer continuousTimer; // Timer for continuous simulation mode
+    private boolean isContinuousRunning = false; // Continuous stepping on the simulation thread
+
+    // Render clock: repaints at most targetFps times per second, always from the latest snapshot
+    private static final Integer[] FPS_CHOICES = {10, 20, 30, 60};
+    // Real-time factor of each speed slider level (level 2 = real time)
+    private static final double[] SPEED_FACTORS = {0.5, 1, 2, 3, 5, 10, 20, 30, 50, 100};
+    private static final long RATE_SAMPLE_NANOS = 500_000_000L; // Refresh the achieved-rate label twice a second
+    private Timer renderTimer;
+    private WorldSnapshot lastRenderedSnapshot = null;
+    private long lastRateSampleNanos = System.nanoTime();
+    private JComboBox<Integer> fpsBox;
+    private JLabel rateLabel;
+    private JSlider timelineSlider; // Scrub through steps [0, furthest] via checkpoints
+    private boolean timelineUpdating = false; // Set while the render clock moves the slider
+
+    // Snapshot sampling choices of max speed mode (wall-clock interval or step count)
+    private static final String[] SAMPLE_CHOICES = {"Every 200 ms", "Every 1 s", "Every 100 steps", "Every 1000 steps"};
 
     /**
      * Initialize main frame and all core components
@@ -79,6 +99,7 @@ public class SumoMainFrame extends JFrame {
         layoutComponents(); // Layout all UI components
         bindEvents(); // Bind event listeners to components
         initComponentStatus(); // Set initial disabled/enabled status for components
+        renderTimer.start(); // Start the render clock
     }
 
     /**
@@ -88,7 +109,7 @@ public class SumoMainFrame extends JFrame {
         initMenuBar(); // Initialize top menu bar
         initLeftPanel(); // Initialize left function panel
         initRightPanel(); // Initialize right display panel
-        continuousTimer = new Timer(1000, this::handleContinuousStep); // 1s default interval for continuous mode
+        renderTimer = new Timer(1000 / 30, e -> handleRenderTick()); // 30 fps default render target
     }
 
     /**
@@ -286,17 +307,63 @@ public class SumoMainFrame extends JFrame {
         gbc.gridy++;
         gbc.gridwidth = 1;
         gbc.anchor = GridBagConstraints.WEST;
-        speedLabel = new JLabel("Simulation Speed：Level 1");
+        speedLabel = new JLabel("Simulation Speed：1x");
         controlSubPanel.add(speedLabel, gbc);
 
         gbc.gridx = 1;
         gbc.gridwidth = 2;
-        speedSlider = new JSlider(1, 10, 1);
+        speedSlider = new JSlider(1, SPEED_FACTORS.length, 2);
         speedSlider.setMajorTickSpacing(1);
         speedSlider.setPaintTicks(true);
         speedSlider.setEnabled(false); // Disabled until connected
         controlSubPanel.add(speedSlider, gbc);
 
+        // Real-time mode: lockstep with the wall clock, catching up in batches when behind
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.gridwidth = 3;
+        realTimeBox = new JCheckBox("Real-Time Sync");
+        realTimeBox.setToolTipText("Keep simulation time in lockstep with the wall clock at the selected factor");
+        realTimeBox.setEnabled(false); // Disabled until connected
+        controlSubPanel.add(realTimeBox, gbc);
+
+        // Max speed mode: unthrottled batches, sampled by wall-clock interval or step count
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.gridwidth = 1;
+        maxSpeedBox = new JCheckBox("Max Speed");
+        controlSubPanel.add(maxSpeedBox, gbc);
+
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        sampleBox = new JComboBox<>(SAMPLE_CHOICES);
+        controlSubPanel.add(sampleBox, gbc);
+
+        // Step pipeline: what happens when snapshots are built slower than SUMO steps
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.gridwidth = 1;
+        controlSubPanel.add(new JLabel("Backpressure："), gbc);
+
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        backpressureBox = new JComboBox<>(PipelineStage.Backpressure.values());
+        controlSubPanel.add(backpressureBox, gbc);
+
+        // Stop condition of continuous runs (type + value)
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.gridwidth = 1;
+        controlSubPanel.add(new JLabel("Stop At："), gbc);
+
+        gbc.gridx = 1;
+        stopTypeBox = new JComboBox<>(StopCondition.Type.values());
+        controlSubPanel.add(stopTypeBox, gbc);
+
+        gbc.gridx = 2;
+        stopValueField = new JTextField("3600", 6);
+        controlSubPanel.add(stopValueField, gbc);
+
         // Operation log area (read-only text area with scroll)
         gbc.gridx = 0;
         gbc.gridy++;
@@ -349,6 +416,7 @@ public class SumoMainFrame extends JFrame {
         resetViewBtn = new JButton("Reset View");
         showVehicleLabelBtn = new JButton("Show Vehicle Label");
         showTLLabelBtn = new JButton("Show Traffic Light Status");
+        viewportBtn = new JButton("Viewport Only");
 
         setMapToolsEnabled(false); // Disabled until connected
 
@@ -359,10 +427,27 @@ public class SumoMainFrame extends JFrame {
         mapToolBar.addSeparator();
         mapToolBar.add(showVehicleLabelBtn);
         mapToolBar.add(showTLLabelBtn);
-
-        // Simulation time display (right-aligned in toolbar)
+        mapToolBar.add(viewportBtn);
+        mapToolBar.addSeparator();
+        mapToolBar.add(new JLabel("Max FPS "));
+        fpsBox = new JComboBox<>(FPS_CHOICES);
+        fpsBox.setSelectedItem(30);
+        fpsBox.setMaximumSize(fpsBox.getPreferredSize());
+        mapToolBar.add(fpsBox);
+        mapToolBar.addSeparator();
+        mapToolBar.add(new JLabel("Timeline "));
+        timelineSlider = new JSlider(0, 0, 0);
+        timelineSlider.setToolTipText("Drag to rewind or fast-forward to a step");
+        timelineSlider.setMaximumSize(new Dimension(200, timelineSlider.getPreferredSize().height));
+        timelineSlider.setEnabled(false);
+        mapToolBar.add(timelineSlider);
+
+        // Simulation time display with achieved rates (right-aligned in toolbar)
         simulationTimeLabel = new JLabel("00:00:00");
+        rateLabel = new JLabel("0.0 steps/s | 0 fps");
         mapToolBar.add(Box.createHorizontalGlue()); // Push time label to right
+        mapToolBar.add(rateLabel);
+        mapToolBar.addSeparator();
         mapToolBar.add(simulationTimeLabel);
 
         mapSubPanel.add(mapToolBar, BorderLayout.NORTH);
@@ -512,12 +597,15 @@ public class SumoMainFrame extends JFrame {
         dialog.setLayout(new GridLayout(6, 2, 10, 10));
         dialog.setLocationRelativeTo(this);
 
-        // to get the Edge-List
-        java.util.List<String> edges = org.eclipse.sumo.libtraci.Edge.getIDList();
+        // to get the Edge-List and the Route-List (TraCI is shared with the simulation thread)
+        java.util.List<String> edges;
+        java.util.List<String> routes;
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            edges = org.eclipse.sumo.libtraci.Edge.getIDList();
+            routes = org.eclipse.sumo.libtraci.Route.getIDList();
+        }
         JComboBox<String> edgeBox = new JComboBox<>(edges.toArray(new String[0]));
 
-        // to get the Route-List
-        java.util.List<String> routes = org.eclipse.sumo.libtraci.Route.getIDList();
         JComboBox<String> routeBox = new JComboBox<>(routes.toArray(new String[0]));
 
         JTextField speedField = new JTextField("10"); // km/h
@@ -613,11 +701,39 @@ public class SumoMainFrame extends JFrame {
         // Add vehicle button event (inject new vehicle into simulation)
         addVehicleBtn.addActionListener(e -> showVehicleCreationDialog());
 
-        // Speed slider event (adjust continuous mode interval)
+        // Speed slider event (target real-time factor of continuous mode)
         speedSlider.addChangeListener(e -> {
-            int speed = speedSlider.getValue();
-            speedLabel.setText("Simulation Speed：Level " + speed);
-            continuousTimer.setDelay(1100 - speed * 100); // 1000ms (Level1) to 100ms (Level10)
+            if (speedSlider.getValueIsAdjusting()) return;
+            double factor = selectedSpeedFactor();
+            speedLabel.setText("Simulation Speed：" + formatFactor(factor));
+            businessService.setRealTimeFactor(factor);
+        });
+
+        realTimeBox.addActionListener(e -> businessService.setRealTimeMode(realTimeBox.isSelected()));
+
+        // Max speed mode and its snapshot sampling
+        maxSpeedBox.addActionListener(e -> {
+            businessService.setMaxSpeedMode(maxSpeedBox.isSelected());
+            updateControlStatus();
+        });
+        sampleBox.addActionListener(e -> businessService.setBatchSampling(selectedSampling()));
+        backpressureBox.addActionListener(e -> businessService.setBackpressure(
+                (PipelineStage.Backpressure) backpressureBox.getSelectedItem()));
+
+        // Render target: repaint interval of the render clock
+        fpsBox.addActionListener(e -> {
+            int fps = (Integer) fpsBox.getSelectedItem();
+            renderTimer.setDelay(1000 / fps);
+            logger.info("Map render target set to {} fps", fps);
+        });
+
+        // Timeline: seek once the thumb is released at a new step
+        timelineSlider.addChangeListener(e -> {
+            if (timelineUpdating || timelineSlider.getValueIsAdjusting()) return;
+            int target = timelineSlider.getValue();
+            if (target != businessService.getSnapshot().getStep()) {
+                businessService.seekTo(target);
+            }
         });
 
         // Right panel map tool events
@@ -631,6 +747,11 @@ public class SumoMainFrame extends JFrame {
         resetViewBtn.addActionListener(e -> businessService.resetMapView()); // Reset map zoom/position
         showVehicleLabelBtn.addActionListener(e -> businessService.toggleVehicleLabel()); // Show/hide vehicle labels
         showTLLabelBtn.addActionListener(e -> businessService.toggleTLStatusLabel()); // Show/hide TL status labels
+        viewportBtn.addActionListener(e -> {
+            businessService.toggleViewportMode();
+            boolean isEnabled = viewportBtn.getText().equals("Viewport Only");
+            viewportBtn.setText(isEnabled ? "Whole Map" : "Viewport Only");
+        }); // Toggle viewport-limited vehicle retrieval
 
         // Vehicle card click event (show detailed vehicle stats)
         vehicleCard.addMouseListener(new MouseAdapter() {
@@ -678,6 +799,8 @@ public class SumoMainFrame extends JFrame {
         resetViewBtn.setEnabled(enabled);
         showVehicleLabelBtn.setEnabled(enabled);
         showTLLabelBtn.setEnabled(enabled);
+        viewportBtn.setEnabled(enabled);
+        timelineSlider.setEnabled(enabled);
     }
 
     /**
@@ -689,6 +812,8 @@ public class SumoMainFrame extends JFrame {
         resetBtn.setEnabled(false);
         disconnectBtn.setEnabled(false);
         speedSlider.setEnabled(false);
+        realTimeBox.setEnabled(false);
+        setRunSettingsEnabled(false);
         setMapToolsEnabled(false); // Disable map tools
         addVehicleBtn.setEnabled(false);
         tlControlBtn.setEnabled(false);
@@ -704,7 +829,9 @@ public class SumoMainFrame extends JFrame {
         // Enable/disable controls based on mode and connection status
         stepForwardBtn.setEnabled(isConnected && isStepMode);
         startPauseBtn.setEnabled(isConnected && !isStepMode);
-        speedSlider.setEnabled(isConnected && !isStepMode);
+        speedSlider.setEnabled(isConnected && !isStepMode && !maxSpeedBox.isSelected());
+        realTimeBox.setEnabled(isConnected && !isStepMode && !maxSpeedBox.isSelected());
+        setRunSettingsEnabled(isConnected && !isStepMode);
         resetBtn.setEnabled(isConnected);
         disconnectBtn.setEnabled(isConnected);
         setMapToolsEnabled(isConnected);
@@ -718,6 +845,56 @@ public class SumoMainFrame extends JFrame {
         }
     }
 
+    /**
+     * Enable/disable the max speed and stop condition controls of continuous mode
+     */
+    private void setRunSettingsEnabled(boolean enabled) {
+        maxSpeedBox.setEnabled(enabled);
+        sampleBox.setEnabled(enabled);
+        stopTypeBox.setEnabled(enabled);
+        stopValueField.setEnabled(enabled);
+    }
+
+    /**
+     * Real-time factor of the current speed slider level
+     */
+    private double selectedSpeedFactor() {
+        return SPEED_FACTORS[speedSlider.getValue() - 1];
+    }
+
+    private static String formatFactor(double factor) {
+        return (factor == Math.rint(factor) ? String.valueOf((int) factor) : String.valueOf(factor)) + "x";
+    }
+
+    /**
+     * Sampling of max speed mode as selected in the combo box
+     */
+    private StepBatcher selectedSampling() {
+        return switch (sampleBox.getSelectedIndex()) {
+            case 1 -> StepBatcher.everyMillis(1000);
+            case 2 -> StepBatcher.everySteps(100);
+            case 3 -> StepBatcher.everySteps(1000);
+            default -> StepBatcher.everyMillis(200);
+        };
+    }
+
+    /**
+     * Stop condition from the selection; null (with a warning) if the value is not a number
+     */
+    private StopCondition selectedStopCondition() {
+        StopCondition.Type type = (StopCondition.Type) stopTypeBox.getSelectedItem();
+        if (type == StopCondition.Type.NONE || type == StopCondition.Type.NO_VEHICLES) {
+            return StopCondition.of(type, 0);
+        }
+        try {
+            return StopCondition.of(type, Double.parseDouble(stopValueField.getText().trim()));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid stop value: " + stopValueField.getText(),
+                    "Prompt", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+    }
+
     /**
      * Open file chooser to select SUMO configuration file (.sumocfg)
      */
@@ -741,7 +918,7 @@ public class SumoMainFrame extends JFrame {
      * Handle start/pause toggle for continuous simulation mode
      */
     private void handleStartPause() {
-        if (continuousTimer.isRunning()) {
+        if (isContinuousRunning) {
             stopContinuousSimulation(); // Pause if running
         } else {
             startContinuousSimulation(); // Start if paused
@@ -749,32 +926,29 @@ public class SumoMainFrame extends JFrame {
     }
 
     /**
-     * Start continuous simulation (enable timer, update button text)
+     * Start continuous simulation (simulation thread steps at the set rate, update button text)
      */
     public void startContinuousSimulation() {
+        StopCondition stop = selectedStopCondition();
+        if (stop == null) return;
+        businessService.setStopCondition(stop);
+
         isContinuousRunning = true;
         startPauseBtn.setText("Pause"); // Update button text to "Pause"
-        continuousTimer.start(); // Start timer (triggers stepSimulation() at set interval)
-        logger.info("Continuous simulation has started，speed：Level " + speedSlider.getValue());
+        businessService.startContinuousSimulation();
+        logger.info("Continuous simulation has started，speed：" + formatFactor(selectedSpeedFactor()));
     }
 
     /**
-     * Stop continuous simulation (disable timer, update button text)
+     * Stop continuous simulation (pause the simulation thread, update button text)
      */
     public void stopContinuousSimulation() {
         isContinuousRunning = false;
         startPauseBtn.setText("Start"); // Update button text to "Start"
-        continuousTimer.stop(); // Stop timer
+        businessService.pauseContinuousSimulation();
         logger.info("Continuous simulation has been paused");
     }
 
-    /**
-     * Handle single simulation step for continuous mode (timer callback)
-     */
-    private void handleContinuousStep(ActionEvent e) {
-        businessService.stepSimulation(); // Delegate step logic to business service
-    }
-
     /**
      * Handle application exit (confirm with user, disconnect SUMO if connected)
      */
@@ -1037,7 +1211,7 @@ public class SumoMainFrame extends JFrame {
                 List<String> edges = selected.getControlledLanes();
 
                 for (String edge : edges){
-                    if (!edgesDisplayIDs.contains(edge)){
+                    if (!edge.isEmpty() && !edgesDisplayIDs.contains(edge)){
                         edgesDisplayIDs.addElement(edge);
                     }
                 }
@@ -1180,8 +1354,46 @@ public class SumoMainFrame extends JFrame {
 
         // Update simulation time display
         simulationTimeLabel.setText(data.getSimulationTime());
+    }
 
-        mapCanvas.repaint(); // Redraw map to reflect latest data
+    /**
+     * Render clock tick: show the newest published snapshot (skipping any in between)
+     * and refresh the achieved steps/s and fps
+     */
+    private void handleRenderTick() {
+        WorldSnapshot latest = businessService.getSnapshot();
+        if (latest != lastRenderedSnapshot) {
+            lastRenderedSnapshot = latest;
+            if (latest.getData() != null) {
+                updateDashboard(latest.getData());
+            }
+            mapCanvas.repaint(); // Redraw map to reflect latest data
+        }
+        updateTimeline(latest);
+
+        long now = System.nanoTime();
+        if (now - lastRateSampleNanos >= RATE_SAMPLE_NANOS) {
+            lastRateSampleNanos = now;
+            String rates = String.format("%.1f steps/s | %.0f fps",
+                    businessService.sampleStepRate(), businessService.sampleFrameRate());
+            // Flag a target real-time factor that the measured step cost cannot sustain
+            boolean sustainable = businessService.isPacingSustainable();
+            rateLabel.setText(sustainable ? rates
+                    : rates + String.format(" | max %.1fx", businessService.getAchievableRealTimeFactor()));
+            rateLabel.setForeground(sustainable ? UIManager.getColor("Label.foreground") : Color.RED);
+            rateLabel.setToolTipText(businessService.samplePipelineStats()); // Stage latencies on hover
+        }
+    }
+
+    /**
+     * Follow the current step on the timeline slider (not while the user drags it)
+     */
+    private void updateTimeline(WorldSnapshot latest) {
+        if (timelineSlider.getValueIsAdjusting()) return;
+        timelineUpdating = true;
+        timelineSlider.setMaximum(Math.max(businessService.getFurthestStep(), latest.getStep()));
+        timelineSlider.setValue(latest.getStep());
+        timelineUpdating = false;
     }
 
     /**
@@ -0,0 +1,305 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming (StAX) parser for SUMO .net.xml files.
+ * Reads edges/lanes, junction outlines, tlLogic and connection elements in a single forward pass
+ * straight into a SumoNetwork, so memory stays proportional to the model, not to the XML document.
+ */
+public class SumoNetParser {
+    private static final Logger logger = LogManager.getLogger(SumoNetParser.class);
+    private static final float DEFAULT_LANE_WIDTH = 3.2f; // SUMO default when a lane has no width attribute
+    private static final int CHUNK_LANES = 2000;          // Lanes per partial geometry chunk
+
+    private final RoadGeometryStore.Builder roads = new RoadGeometryStore.Builder();
+    private final RoadGeometryStore.ChunkListener listener; // Null = no partial results
+    private final CountingInputStream counter;
+    private final long totalBytes;
+    private RoadGeometryStore.Builder chunk = new RoadGeometryStore.Builder();
+    private final double[] boundary = new double[4];
+
+    // Junction outlines (growable flat arrays)
+    private final List<String> junctionIds = new ArrayList<>();
+    private float[] junctionX = new float[256];
+    private float[] junctionY = new float[256];
+    private int[] junctionOffset = new int[257];
+    private float[] junctionShapeXs = new float[1024];
+    private float[] junctionShapeYs = new float[1024];
+    private int junctionPoints = 0;
+
+    // Traffic lights: program per TL, incoming lane per link index (from <connection tl=.. linkIndex=..>)
+    private final Map<String, String> tlPrograms = new LinkedHashMap<>();
+    private final Map<String, String[]> tlLinks = new LinkedHashMap<>();
+
+    // Reusable coordinate buffers for shape attributes
+    private float[] shapeX = new float[64];
+    private float[] shapeY = new float[64];
+    private int shapeSize = 0;
+
+    private SumoNetParser(RoadGeometryStore.ChunkListener listener, CountingInputStream counter, long totalBytes) {
+        this.listener = listener;
+        this.counter = counter;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Parse a .net.xml (or .net.xml.gz) file into an immutable network model
+     */
+    public static SumoNetwork parse(String netFilePath) throws IOException, XMLStreamException {
+        return parse(netFilePath, null);
+    }
+
+    /**
+     * Parse and hand partial road geometry to the listener every CHUNK_LANES lanes
+     * (progress = fraction of the file read)
+     */
+    public static SumoNetwork parse(String netFilePath, RoadGeometryStore.ChunkListener listener)
+            throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        File netFile = new File(netFilePath);
+        CountingInputStream counter = new CountingInputStream(new FileInputStream(netFile));
+        InputStream buffered = new BufferedInputStream(counter, 1 << 16);
+        try (InputStream in = netFile.getName().endsWith(".gz") ? new GZIPInputStream(buffered, 1 << 16) : buffered) {
+            SumoNetwork network = new SumoNetParser(listener, counter, Math.max(1, netFile.length())).read(in);
+            logger.info("Network file parsed in {} ms: {} lanes, {} junctions, {} traffic lights",
+                    (System.nanoTime() - start) / 1_000_000, network.getRoads().getLaneCount(),
+                    network.getJunctionCount(), network.getTrafficLightCount());
+            return network;
+        }
+    }
+
+    private SumoNetwork read(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            String edgeId = null; // Edge whose <lane> children are being read
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "location" -> readLocation(reader);
+                        case "edge" -> edgeId = reader.getAttributeValue(null, "id");
+                        case "lane" -> {
+                            if (edgeId != null) readLane(reader, edgeId);
+                        }
+                        case "junction" -> readJunction(reader);
+                        case "tlLogic" -> tlPrograms.putIfAbsent(reader.getAttributeValue(null, "id"),
+                                attribute(reader, "programID", "0"));
+                        case "connection" -> readConnection(reader);
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "edge".equals(reader.getLocalName())) {
+                    edgeId = null;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (listener != null) {
+            flushChunk();
+        }
+        return build();
+    }
+
+    private void readLocation(XMLStreamReader reader) {
+        String conv = reader.getAttributeValue(null, "convBoundary");
+        if (conv == null) return;
+        String[] parts = conv.split(",");
+        if (parts.length == 4) {
+            for (int i = 0; i < 4; i++) {
+                boundary[i] = Double.parseDouble(parts[i]);
+            }
+        }
+    }
+
+    private void readLane(XMLStreamReader reader, String edgeId) {
+        String laneId = reader.getAttributeValue(null, "id");
+        String shape = reader.getAttributeValue(null, "shape");
+        if (laneId == null || shape == null) return;
+
+        parseShape(shape);
+        float width = Float.parseFloat(attribute(reader, "width", String.valueOf(DEFAULT_LANE_WIDTH)));
+        float speed = Float.parseFloat(attribute(reader, "speed", "0"));
+        float[] px = Arrays.copyOf(shapeX, shapeSize);
+        float[] py = Arrays.copyOf(shapeY, shapeSize);
+        roads.addLane(edgeId, laneId, width, speed, px, py);
+
+        if (listener != null) {
+            chunk.addLane(edgeId, laneId, width, speed, px, py);
+            if (chunk.getLaneCount() >= CHUNK_LANES) {
+                flushChunk();
+            }
+        }
+    }
+
+    private void flushChunk() {
+        if (chunk.getLaneCount() == 0) return;
+        listener.onChunk(chunk.build(), (double) counter.getCount() / totalBytes);
+        chunk = new RoadGeometryStore.Builder();
+    }
+
+    private void readJunction(XMLStreamReader reader) {
+        if ("internal".equals(reader.getAttributeValue(null, "type"))) return; // No outline of its own
+
+        int j = junctionIds.size();
+        if (j + 1 >= junctionOffset.length) {
+            int capacity = junctionX.length * 2;
+            junctionX = Arrays.copyOf(junctionX, capacity);
+            junctionY = Arrays.copyOf(junctionY, capacity);
+            junctionOffset = Arrays.copyOf(junctionOffset, capacity + 1);
+        }
+        junctionIds.add(reader.getAttributeValue(null, "id"));
+        junctionX[j] = Float.parseFloat(attribute(reader, "x", "0"));
+        junctionY[j] = Float.parseFloat(attribute(reader, "y", "0"));
+
+        String shape = reader.getAttributeValue(null, "shape");
+        if (shape != null) {
+            parseShape(shape);
+            if (junctionPoints + shapeSize > junctionShapeXs.length) {
+                int capacity = Math.max(junctionShapeXs.length * 2, junctionPoints + shapeSize);
+                junctionShapeXs = Arrays.copyOf(junctionShapeXs, capacity);
+                junctionShapeYs = Arrays.copyOf(junctionShapeYs, capacity);
+            }
+            System.arraycopy(shapeX, 0, junctionShapeXs, junctionPoints, shapeSize);
+            System.arraycopy(shapeY, 0, junctionShapeYs, junctionPoints, shapeSize);
+            junctionPoints += shapeSize;
+        }
+        junctionOffset[j + 1] = junctionPoints;
+    }
+
+    private void readConnection(XMLStreamReader reader) {
+        String tl = reader.getAttributeValue(null, "tl");
+        String linkIndex = reader.getAttributeValue(null, "linkIndex");
+        if (tl == null || linkIndex == null) return;
+
+        int link = Integer.parseInt(linkIndex);
+        if (link < 0) return;
+        String lane = reader.getAttributeValue(null, "from") + "_" + reader.getAttributeValue(null, "fromLane");
+
+        String[] links = tlLinks.get(tl);
+        if (links == null || link >= links.length) {
+            links = links == null ? new String[Math.max(16, link + 1)]
+                    : Arrays.copyOf(links, Math.max(links.length * 2, link + 1));
+            tlLinks.put(tl, links);
+        }
+        links[link] = lane;
+    }
+
+    /**
+     * Parse "x,y[,z] x,y[,z] ..." into the reusable shape buffers (z is ignored)
+     */
+    private void parseShape(String shape) {
+        shapeSize = 0;
+        int length = shape.length();
+        int pos = 0;
+        while (pos < length) {
+            while (pos < length && shape.charAt(pos) == ' ') pos++;
+            if (pos >= length) break;
+            int end = shape.indexOf(' ', pos);
+            if (end < 0) end = length;
+
+            int comma = shape.indexOf(',', pos);
+            if (comma > pos && comma < end) {
+                int comma2 = shape.indexOf(',', comma + 1);
+                int yEnd = (comma2 > comma && comma2 < end) ? comma2 : end;
+                if (shapeSize == shapeX.length) {
+                    shapeX = Arrays.copyOf(shapeX, shapeSize * 2);
+                    shapeY = Arrays.copyOf(shapeY, shapeSize * 2);
+                }
+                shapeX[shapeSize] = Float.parseFloat(shape.substring(pos, comma));
+                shapeY[shapeSize] = Float.parseFloat(shape.substring(comma + 1, yEnd));
+                shapeSize++;
+            }
+            pos = end + 1;
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name, String fallback) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : fallback;
+    }
+
+    private SumoNetwork build() {
+        // TLs in tlLogic order, plus any TL only referenced by connections
+        for (String tl : tlLinks.keySet()) {
+            tlPrograms.putIfAbsent(tl, "0");
+        }
+        int tlCount = tlPrograms.size();
+        String[] tlIds = tlPrograms.keySet().toArray(new String[0]);
+        String[] programIds = tlPrograms.values().toArray(new String[0]);
+        int[] linkOffset = new int[tlCount + 1];
+        List<String> linkLanes = new ArrayList<>();
+        for (int t = 0; t < tlCount; t++) {
+            String[] links = tlLinks.get(tlIds[t]);
+            int count = 0;
+            if (links != null) {
+                for (int i = 0; i < links.length; i++) {
+                    if (links[i] != null) count = i + 1;
+                }
+                for (int i = 0; i < count; i++) {
+                    // "" only keeps link indices aligned; TrafficLightIndex skips it
+                    linkLanes.add(links[i] != null ? links[i] : "");
+                }
+            }
+            linkOffset[t + 1] = linkOffset[t] + count;
+        }
+
+        int junctions = junctionIds.size();
+        return new SumoNetwork(roads.build(), boundary,
+                junctionIds.toArray(new String[0]),
+                Arrays.copyOf(junctionX, junctions), Arrays.copyOf(junctionY, junctions),
+                Arrays.copyOf(junctionOffset, junctions + 1),
+                Arrays.copyOf(junctionShapeXs, junctionPoints), Arrays.copyOf(junctionShapeYs, junctionPoints),
+                tlIds, programIds, linkOffset, linkLanes.toArray(new String[0]));
+    }
+
+    /**
+     * Counts the raw (possibly compressed) bytes read from the file, for progress reporting
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+/**
+ * Immutable in-memory model of the static road network (read from the .net.xml, not over TraCI).
+ * Holds the packed lane geometry, junction outlines and the traffic light link tables;
+ * all variable-length data is stored in flat arrays addressed by offsets.
+ */
+public final class SumoNetwork {
+    private final RoadGeometryStore roads;      // Lane polylines, widths and speeds
+    private final double[] boundary;            // convBoundary: minX, minY, maxX, maxY
+
+    // Junctions: outline of junction j is points [junctionOffset[j], junctionOffset[j + 1])
+    private final String[] junctionIds;
+    private final float[] junctionX;            // Junction center X
+    private final float[] junctionY;            // Junction center Y
+    private final int[] junctionOffset;         // Length = junction count + 1
+    private final float[] junctionShapeXs;
+    private final float[] junctionShapeYs;
+
+    // Traffic lights: incoming lane of link i of TL t is tlLinkLane[tlLinkOffset[t] + i] ("" if unused)
+    private final String[] tlIds;
+    private final String[] tlProgramIds;        // Program of the tlLogic in the network file
+    private final int[] tlLinkOffset;           // Length = TL count + 1
+    private final String[] tlLinkLane;
+
+    SumoNetwork(RoadGeometryStore roads, double[] boundary,
+                String[] junctionIds, float[] junctionX, float[] junctionY, int[] junctionOffset,
+                float[] junctionShapeXs, float[] junctionShapeYs,
+                String[] tlIds, String[] tlProgramIds, int[] tlLinkOffset, String[] tlLinkLane) {
+        this.roads = roads;
+        this.boundary = boundary;
+        this.junctionIds = junctionIds;
+        this.junctionX = junctionX;
+        this.junctionY = junctionY;
+        this.junctionOffset = junctionOffset;
+        this.junctionShapeXs = junctionShapeXs;
+        this.junctionShapeYs = junctionShapeYs;
+        this.tlIds = tlIds;
+        this.tlProgramIds = tlProgramIds;
+        this.tlLinkOffset = tlLinkOffset;
+        this.tlLinkLane = tlLinkLane;
+    }
+
+    public RoadGeometryStore getRoads() { return roads; }
+    public double[] getBoundary() { return Arrays.copyOf(boundary, boundary.length); }
+
+    public int getJunctionCount() { return junctionIds.length; }
+    public String getJunctionId(int j) { return junctionIds[j]; }
+    public float getJunctionX(int j) { return junctionX[j]; }
+    public float getJunctionY(int j) { return junctionY[j]; }
+    public int getJunctionShapeStart(int j) { return junctionOffset[j]; }
+    public int getJunctionShapeEnd(int j) { return junctionOffset[j + 1]; }
+    public float getJunctionShapeX(int point) { return junctionShapeXs[point]; }
+    public float getJunctionShapeY(int point) { return junctionShapeYs[point]; }
+
+    public int getTrafficLightCount() { return tlIds.length; }
+    public String getTlId(int t) { return tlIds[t]; }
+    public String getTlProgramId(int t) { return tlProgramIds[t]; }
+    public int getTlLinkCount(int t) { return tlLinkOffset[t + 1] - tlLinkOffset[t]; }
+    public String getTlLinkLane(int t, int link) { return tlLinkLane[tlLinkOffset[t] + link]; }
+
+    // Raw tables for the binary network cache
+    double[] boundaryArray() { return boundary; }
+    String[] junctionIdArray() { return junctionIds; }
+    float[] junctionXArray() { return junctionX; }
+    float[] junctionYArray() { return junctionY; }
+    int[] junctionOffsetArray() { return junctionOffset; }
+    float[] junctionShapeXArray() { return junctionShapeXs; }
+    float[] junctionShapeYArray() { return junctionShapeYs; }
+    String[] tlIdArray() { return tlIds; }
+    String[] tlProgramIdArray() { return tlProgramIds; }
+    int[] tlLinkOffsetArray() { return tlLinkOffset; }
+    String[] tlLinkLaneArray() { return tlLinkLane; }
+}
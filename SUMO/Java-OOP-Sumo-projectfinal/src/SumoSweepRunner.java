@@ -0,0 +1,367 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel scenario sweep: runs one .sumocfg under every combination of seeds, demand scales and
+ * variants (extra SUMO options, e.g. an additional file with other TL programs).
+ * libtraci keeps one global connection per JVM, so every run is an isolated SumoHeadlessRunner
+ * process with its own SUMO instance; up to one run per available core executes at a time.
+ * The per-run statistics series are combined into one comparison table.
+ *
+ * Usage: java SumoSweepRunner -c scenario.sumocfg [--seeds 1,2,3] [--scales 0.5,1,1.5]
+ *        [--variant label="sumo options"]... [--parallel n] [--out dir] [--sumo binary]
+ *        [--end seconds | --steps n] [--sample-steps n | --sample-ms ms]
+ * Variant options are split on whitespace; quote a value that contains spaces with ' or ",
+ * e.g. --variant "tls=-a 'programs/tls variant.add.xml'".
+ */
+public class SumoSweepRunner {
+    private static final Logger logger = LogManager.getLogger(SumoSweepRunner.class);
+
+    /**
+     * One scenario run of the sweep and its results
+     */
+    private static final class Run {
+        final String label;
+        final List<String> sumoOptions;
+        final File statsFile;
+        final File logFile;
+        int exitCode = -1;
+        double wallSeconds;
+        // Aggregated from the statistics series
+        int rows;
+        long steps;
+        double simTime;
+        int peakVehicles;
+        double meanVehicles;
+        double meanEfficiency;
+        double finalAvgSpeed;
+
+        Run(String label, List<String> sumoOptions, File outDir) {
+            this.label = label;
+            this.sumoOptions = sumoOptions;
+            this.statsFile = new File(outDir, label + ".csv");
+            this.logFile = new File(outDir, label + ".log");
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("log4j.configurationFile") == null) {
+            System.setProperty("log4j.configurationFile", "resources/log4j2.xml");
+        }
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: SumoSweepRunner -c <scenario.sumocfg> [--seeds 1,2,3] [--scales 0.5,1,1.5]"
+                    + " [--variant label=\"sumo options\"]... [--parallel <n>] [--out <dir>] [--sumo <binary>]"
+                    + " [--end <seconds> | --steps <n>] [--sample-steps <n> | --sample-ms <ms>]");
+            System.exit(2);
+        }
+    }
+
+    private static int run(String[] args) {
+        // 1. Command line options; run-level options are forwarded to every SumoHeadlessRunner
+        String configPath = null;
+        List<String> seeds = List.of("");
+        List<String> scales = List.of("");
+        List<String[]> variants = new ArrayList<>();
+        int parallel = Runtime.getRuntime().availableProcessors();
+        File outDir = null;
+        List<String> forwarded = new ArrayList<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String option = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+            String value = args[i + 1];
+            switch (option) {
+                case "-c", "--config" -> configPath = value;
+                case "--seeds" -> seeds = splitList(value);
+                case "--scales" -> scales = splitList(value);
+                case "--variant" -> {
+                    int eq = value.indexOf('=');
+                    if (eq <= 0) throw new IllegalArgumentException("Variant must be label=\"options\": " + value);
+                    variants.add(new String[]{value.substring(0, eq), value.substring(eq + 1)});
+                }
+                case "--parallel" -> parallel = Math.max(1, parseInt(option, value));
+                case "--out" -> outDir = new File(value);
+                case "--sumo", "--end", "--steps", "--sample-steps", "--sample-ms" -> {
+                    forwarded.add(option);
+                    forwarded.add(value);
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (configPath == null) {
+            throw new IllegalArgumentException("Missing scenario: -c <scenario.sumocfg>");
+        }
+        if (variants.isEmpty()) {
+            variants.add(new String[]{"", ""});
+        }
+        if (outDir == null) {
+            String scenario = new File(configPath).getName().replace(".sumocfg", "");
+            String timestamp = java.time.LocalDateTime.now()
+                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            outDir = new File("exports", scenario + "_sweep_" + timestamp);
+        }
+
+        // 2. Cartesian product of seeds x scales x variants; labels name the output files, so they must be unique
+        List<Run> runs = new ArrayList<>();
+        Set<String> labels = new HashSet<>();
+        for (String seed : seeds) {
+            for (String scale : scales) {
+                for (String[] variant : variants) {
+                    List<String> options = new ArrayList<>();
+                    List<String> labelParts = new ArrayList<>();
+                    if (!seed.isEmpty()) {
+                        options.addAll(List.of("--seed", seed));
+                        labelParts.add("seed" + seed);
+                    }
+                    if (!scale.isEmpty()) {
+                        options.addAll(List.of("--scale", scale));
+                        labelParts.add("scale" + scale);
+                    }
+                    if (!variant[0].isEmpty()) {
+                        options.addAll(splitOptions(variant[1]));
+                        labelParts.add(variant[0]);
+                    }
+                    String label = labelParts.isEmpty() ? "base" : String.join("_", labelParts);
+                    if (!labels.add(label)) {
+                        throw new IllegalArgumentException("Duplicate run " + label
+                                + " (repeated seed, scale or variant label)");
+                    }
+                    runs.add(new Run(label, options, outDir));
+                }
+            }
+        }
+
+        try {
+            Files.createDirectories(outDir.toPath());
+        } catch (IOException e) {
+            System.err.println("Cannot create output directory " + outDir + ": " + e.getMessage());
+            return 1;
+        }
+        parallel = Math.min(parallel, runs.size());
+        logger.info("Sweep: {} runs of {} with up to {} in parallel", runs.size(), configPath, parallel);
+        System.out.printf("Sweep: %d runs, %d in parallel, output in %s%n", runs.size(), parallel, outDir.getAbsolutePath());
+
+        // 3. Execute the runs as isolated processes
+        ExecutorService pool = Executors.newFixedThreadPool(parallel);
+        List<Future<?>> pending = new ArrayList<>();
+        for (Run r : runs) {
+            String config = configPath;
+            pending.add(pool.submit(() -> execute(r, config, forwarded)));
+        }
+        pool.shutdown();
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                logger.error("Sweep run failed: {}", e.toString());
+            }
+        }
+
+        // 4. Comparison table over all runs
+        File table = new File(outDir, "comparison.csv");
+        File series = new File(outDir, "series.csv");
+        try {
+            writeSeries(runs, series);
+            writeComparison(runs, table);
+        } catch (IOException e) {
+            System.err.println("Failed to write the comparison table: " + e.getMessage());
+            return 1;
+        }
+        printComparison(runs);
+        System.out.println("Comparison table: " + table.getAbsolutePath());
+        return runs.stream().allMatch(r -> r.exitCode == 0) ? 0 : 1;
+    }
+
+    /**
+     * Run one scenario in a child JVM and collect its statistics
+     */
+    private static void execute(Run run, String configPath, List<String> forwarded) {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path")));
+        for (String property : List.of("java.library.path", "log4j.configurationFile")) {
+            String value = System.getProperty(property);
+            if (value != null) command.add("-D" + property + "=" + value);
+        }
+        command.add(SumoHeadlessRunner.class.getName());
+        command.addAll(List.of("-c", configPath, "--out", run.statsFile.getPath()));
+        command.addAll(forwarded);
+        if (!run.sumoOptions.isEmpty()) {
+            command.add("--");
+            command.addAll(run.sumoOptions);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(run.logFile)
+                    .start();
+            run.exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Failed to launch run {}: {}", run.label, e.getMessage());
+        }
+        run.wallSeconds = (System.nanoTime() - start) / 1e9;
+        logger.info("Run {} finished with exit code {} in {} s", run.label, run.exitCode, String.format("%.1f", run.wallSeconds));
+
+        try {
+            aggregate(run);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No statistics for run {}: {}", run.label, e.toString());
+        }
+    }
+
+    /**
+     * Reduce the statistics series of a run (SumoHeadlessRunner CSV) to its comparison columns
+     */
+    private static void aggregate(Run run) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(run.statsFile.toPath(), StandardCharsets.UTF_8)) {
+            List<String> header = Arrays.asList(reader.readLine().split(","));
+            int step = header.indexOf("step"), time = header.indexOf("sim_time_s"),
+                    vehicles = header.indexOf("vehicles"), speed = header.indexOf("avg_speed_kmh"),
+                    efficiency = header.indexOf("efficiency_pct");
+            double vehicleSum = 0, efficiencySum = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] cells = line.split(",");
+                int count = Integer.parseInt(cells[vehicles]);
+                run.rows++;
+                run.steps = Long.parseLong(cells[step]);
+                run.simTime = Double.parseDouble(cells[time]);
+                run.peakVehicles = Math.max(run.peakVehicles, count);
+                run.finalAvgSpeed = Double.parseDouble(cells[speed]);
+                vehicleSum += count;
+                efficiencySum += Double.parseDouble(cells[efficiency]);
+            }
+            if (run.rows > 0) {
+                run.meanVehicles = vehicleSum / run.rows;
+                run.meanEfficiency = efficiencySum / run.rows;
+            }
+        }
+    }
+
+    /**
+     * All series in one long table (run label as first column)
+     */
+    private static void writeSeries(List<Run> runs, File file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            boolean headerWritten = false;
+            for (Run run : runs) {
+                if (!run.statsFile.isFile()) continue;
+                List<String> lines = Files.readAllLines(run.statsFile.toPath(), StandardCharsets.UTF_8);
+                for (int i = 0; i < lines.size(); i++) {
+                    if (i == 0) {
+                        if (headerWritten) continue;
+                        out.write("run," + lines.get(0));
+                        headerWritten = true;
+                    } else {
+                        out.write(csv(run.label) + "," + lines.get(i));
+                    }
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    private static void writeComparison(List<Run> runs, File file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("run,options,exit_code,wall_s,steps,sim_time_s,peak_vehicles,mean_vehicles,final_avg_speed_kmh,mean_efficiency_pct");
+            out.newLine();
+            for (Run run : runs) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%d,%.2f,%d,%.2f,%d,%.2f,%.3f,%.2f",
+                        csv(run.label), csv(String.join(" ", run.sumoOptions)), run.exitCode, run.wallSeconds,
+                        run.steps, run.simTime, run.peakVehicles, run.meanVehicles,
+                        run.finalAvgSpeed, run.meanEfficiency));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * CSV cell: quoted (with doubled quotes) if the free text contains a separator, quote or line break
+     */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void printComparison(List<Run> runs) {
+        System.out.println("==================== Sweep Comparison ====================");
+        System.out.printf("%-24s | %4s | %8s | %8s | %6s | %8s | %10s%n",
+                "Run", "Exit", "Wall(s)", "SimT(s)", "Peak", "MeanVeh", "AvgSpd");
+        for (Run run : runs) {
+            System.out.printf(Locale.ROOT, "%-24s | %4d | %8.1f | %8.1f | %6d | %8.1f | %10.2f%n",
+                    run.label, run.exitCode, run.wallSeconds, run.simTime,
+                    run.peakVehicles, run.meanVehicles, run.finalAvgSpeed);
+        }
+        System.out.println("==========================================================");
+    }
+
+    private static int parseInt(String option, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Split SUMO options on whitespace; single or double quotes keep a value with spaces together
+     */
+    private static List<String> splitOptions(String value) {
+        List<String> options = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+        for (char c : value.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+                else current.append(c);
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) options.add(current.toString());
+                current.setLength(0);
+                inToken = false;
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quote != 0) throw new IllegalArgumentException("Unterminated quote in variant options: " + value);
+        if (inToken) options.add(current.toString());
+        return options;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) items.add(item.trim());
+        }
+        if (items.isEmpty()) throw new IllegalArgumentException("Empty list: " + value);
+        return items;
+    }
+}
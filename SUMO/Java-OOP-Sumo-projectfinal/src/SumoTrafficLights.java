@@ -28,7 +28,7 @@ public class SumoTrafficLights {
     public SumoTrafficLights(String id, List<String> controlledLanes){
         this.id = id;
         this.controlledLanes = controlledLanes;
-        String lanesString = controlledLanes.stream().distinct().sorted().collect(Collectors.joining(", "));
+        String lanesString = controlledLanes.stream().filter(lane -> !lane.isEmpty()).distinct().sorted().collect(Collectors.joining(", "));
         this.displayLanes = "TL " + id + " [" + lanesString + "]";
     }
 
@@ -44,23 +44,25 @@ public class SumoTrafficLights {
     } // returns displayLanes for Jlist
 
     public List<String> getPhasesGUI(){
-        List<String> phaseList = new ArrayList<>();
+        synchronized (SimulationEngine.TRACI_LOCK) { // TraCI is shared with the simulation thread
+            List<String> phaseList = new ArrayList<>();
 
-        try {
-            TraCILogic logic = getFirstLogic();
+            try {
+                TraCILogic logic = getFirstLogic();
 
-            if (logic != null){
-                List<TraCIPhase> phases = logic.getPhases();
+                if (logic != null){
+                    List<TraCIPhase> phases = logic.getPhases();
 
-                // Count Phases and add Index Number
-                for (int i = 0; i < phases.size(); i++){
-                    phaseList.add("Phase " + i);
+                    // Count Phases and add Index Number
+                    for (int i = 0; i < phases.size(); i++){
+                        phaseList.add("Phase " + i);
+                    }
                 }
+            }catch (Exception e){
+                logger.error("Error loading List with Phases");
             }
-        }catch (Exception e){
-            logger.error("Error loading List with Phases");
+            return phaseList;
         }
-        return phaseList;
     } // gives a List of Phases of selceted Traffic Light
 
     private TraCILogic getFirstLogic(){
@@ -91,27 +93,29 @@ public class SumoTrafficLights {
      * @param duration number of duration in seconds for phase
      */
     public void updatePhase(int index, String newState, double duration){
-        try {
-            TraCILogic logic = getFirstLogic();
-            if (logic == null){
-                return;
-            }
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            try {
+                TraCILogic logic = getFirstLogic();
+                if (logic == null){
+                    return;
+                }
 
-            List<TraCIPhase> phases = logic.getPhases();
+                List<TraCIPhase> phases = logic.getPhases();
 
-            if (index >= 0 && index < phases.size()){
-                TraCIPhase p = phases.get(index);
-                p.setState(newState);
-                p.setDuration(duration);
+                if (index >= 0 && index < phases.size()){
+                    TraCIPhase p = phases.get(index);
+                    p.setState(newState);
+                    p.setDuration(duration);
 
-                TrafficLight.setCompleteRedYellowGreenDefinition(id, logic);
+                    TrafficLight.setCompleteRedYellowGreenDefinition(id, logic);
 
-                TrafficLight.setProgram(id, logic.getProgramID());
+                    TrafficLight.setProgram(id, logic.getProgramID());
 
-                logger.info("Phase " + index + " updated");
+                    logger.info("Phase " + index + " updated");
+                }
+            }catch (Exception e){
+                logger.error("ERROR updating Phase!");
             }
-        }catch (Exception e){
-            logger.error("ERROR updating Phase!");
         }
     }
 
@@ -120,31 +124,39 @@ public class SumoTrafficLights {
      * Sets the RedYellowGreenState String to all Red
      */
     public String allRed(){
-        return "r".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            return "r".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        }
     }
 
     /**
      * Sets RedYellowGreenState String to all Yellow
      */
     public String allYellow(){
-        return "y".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            return "y".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        }
     }
 
     /**
      * Sets RedYellowGreenSate String to all Green
      */
     public String allGreen(){
-        return "g".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            return "g".repeat(TrafficLight.getRedYellowGreenState(id).length());
+        }
     }
 
     /**
      * gets the current State of the Traffic light and initialize it to the customState String
      */
     public void initCustomPhase(){
-        try{
-            customStateBuilder = new StringBuilder(TrafficLight.getRedYellowGreenState(id));
-        } catch (Exception e) {
-            logger.error("ERROR initializing Custom Phase!");
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            try{
+                customStateBuilder = new StringBuilder(TrafficLight.getRedYellowGreenState(id));
+            } catch (Exception e) {
+                logger.error("ERROR initializing Custom Phase!");
+            }
         }
     }
 
@@ -168,27 +180,29 @@ public class SumoTrafficLights {
      * adds new Phase for selected TL
      */
     public void addPhase(){
-        try{
-            TraCILogic logic = getFirstLogic();
-            if (logic == null){
-                return;
-            }
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            try{
+                TraCILogic logic = getFirstLogic();
+                if (logic == null){
+                    return;
+                }
 
-            List<TraCIPhase> phases = logic.getPhases();
+                List<TraCIPhase> phases = logic.getPhases();
 
-            String defaultPhase = TrafficLight.getRedYellowGreenState(id);
-            double defaultDuration = TrafficLight.getPhaseDuration(id);
+                String defaultPhase = TrafficLight.getRedYellowGreenState(id);
+                double defaultDuration = TrafficLight.getPhaseDuration(id);
 
-            TraCIPhase newPhase = new TraCIPhase(defaultDuration, defaultPhase);
-            phases.add(newPhase);
+                TraCIPhase newPhase = new TraCIPhase(defaultDuration, defaultPhase);
+                phases.add(newPhase);
 
-            TrafficLight.setCompleteRedYellowGreenDefinition(id, logic);
-            TrafficLight.setProgram(id, logic.getProgramID());
+                TrafficLight.setCompleteRedYellowGreenDefinition(id, logic);
+                TrafficLight.setProgram(id, logic.getProgramID());
 
-            logger.info("New Phase added");
+                logger.info("New Phase added");
 
-        }catch (Exception e){
-            logger.error("Error adding new Phase!");
+            }catch (Exception e){
+                logger.error("Error adding new Phase!");
+            }
         }
     }
 
@@ -197,30 +211,32 @@ public class SumoTrafficLights {
      * @param index number of selected Phase user wants to remove
      */
     public void removePhase(int index){
-        try{
-            TraCILogic logic = getFirstLogic();
-            if (logic == null){
-                return;
-            }
+        synchronized (SimulationEngine.TRACI_LOCK) {
+            try{
+                TraCILogic logic = getFirstLogic();
+                if (logic == null){
+                    return;
+                }
 
-            List<TraCIPhase> phases = logic.getPhases();
+                List<TraCIPhase> phases = logic.getPhases();
 
-            if (index >= 0 && index < phases.size()){
+                if (index >= 0 && index < phases.size()){
 
-                if (phases.size() <= 1){
-                    logger.error("Error! Can not remove last remaining phase!");
-                    return;
-                }
+                    if (phases.size() <= 1){
+                        logger.error("Error! Can not remove last remaining phase!");
+                        return;
+                    }
 
-                phases.remove(index);
+                    phases.remove(index);
 
-                TrafficLight.setCompleteRedYellowGreenDefinition(id , logic);
-                TrafficLight.setProgram(id, logic.getProgramID());
+                    TrafficLight.setCompleteRedYellowGreenDefinition(id , logic);
+                    TrafficLight.setProgram(id, logic.getProgramID());
 
-                logger.info("Phase " + index + " removed");
+                    logger.info("Phase " + index + " removed");
+                }
+            }catch (Exception e){
+                logger.error("Error removing Phase " + index);
             }
-        }catch (Exception e){
-            logger.error("Error removing Phase " + index);
         }
     }
 
@@ -0,0 +1,335 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.sumo.libtraci.Constants;
+import org.eclipse.sumo.libtraci.Edge;
+import org.eclipse.sumo.libtraci.IntVector;
+import org.eclipse.sumo.libtraci.Junction;
+import org.eclipse.sumo.libtraci.Lane;
+import org.eclipse.sumo.libtraci.StringVector;
+import org.eclipse.sumo.libtraci.SubscriptionResults;
+import org.eclipse.sumo.libtraci.TraCIPosition;
+import org.eclipse.sumo.libtraci.TraCIPositionVector;
+import org.eclipse.sumo.libtraci.TraCIResults;
+import org.eclipse.sumo.libtraci.TraCIString;
+import org.eclipse.sumo.libtraci.TrafficLight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Static traffic light topology of the loaded network, built once after connecting.
+ * Holds link index -> lane -> edge as ints, the per-controller edge groups used for counting,
+ * and the signal-head positions, so the per-step work is only reading the RYG state strings.
+ */
+public class TrafficLightIndex {
+    private static final Logger logger = LogManager.getLogger(TrafficLightIndex.class);
+
+    private static final int NO_LANE = -1;
+
+    public static final TrafficLightIndex EMPTY = new TrafficLightIndex(new String[0], new String[0], new int[0],
+            new String[0], new int[]{0}, new int[0], new int[]{0}, new int[0], new double[0], new double[0]);
+
+    // All per-link tables are flat arrays: entry (t, link) lives at linkOffset[t] + link
+    private final String[] tlIds;        // Traffic light IDs (index = TL number)
+    private final String[] laneIds;      // Lane dictionary (controlled lanes only)
+    private final int[] laneEdge;        // Lane number -> edge number
+    private final String[] edgeIds;      // Edge dictionary
+    private final int[] linkOffset;      // TL number -> first flat link slot (length = TL count + 1)
+    private final int[] linkLane;        // Flat link slot -> lane number (NO_LANE for unused link indices)
+    private final int[] countedOffset;   // TL number -> first slot in countedLinks (length = TL count + 1)
+    private final int[] countedLinks;    // First link index of every distinct controlled edge, per TL
+    private final double[] signalX;      // Flat link slot -> signal-head X
+    private final double[] signalY;      // Flat link slot -> signal-head Y
+
+    private final Map<String, Integer> tlNumbers = new HashMap<>();
+
+    private TrafficLightIndex(String[] tlIds, String[] laneIds, int[] laneEdge, String[] edgeIds,
+                              int[] linkOffset, int[] linkLane, int[] countedOffset, int[] countedLinks,
+                              double[] signalX, double[] signalY) {
+        this.tlIds = tlIds;
+        this.laneIds = laneIds;
+        this.laneEdge = laneEdge;
+        this.edgeIds = edgeIds;
+        this.linkOffset = linkOffset;
+        this.linkLane = linkLane;
+        this.countedOffset = countedOffset;
+        this.countedLinks = countedLinks;
+        this.signalX = signalX;
+        this.signalY = signalY;
+        for (int t = 0; t < tlIds.length; t++) {
+            tlNumbers.put(tlIds[t], t);
+        }
+    }
+
+    /**
+     * Query the controlled lanes and lane geometry of every traffic light once (after connect)
+     */
+    public static TrafficLightIndex build() {
+        StringVector idList = TrafficLight.getIDList();
+        String[] tlIds = idList.toArray(new String[0]);
+
+        // Controlled lanes of every TL (one TraCI call per TL)
+        List<List<String>> controlled = new ArrayList<>(tlIds.length);
+        for (String tlId : tlIds) {
+            try {
+                controlled.add(TrafficLight.getControlledLanes(tlId));
+            } catch (Exception e) {
+                logger.warn("TL topology error {}: {}", tlId, e.getMessage());
+                controlled.add(new ArrayList<>());
+            }
+        }
+        return index(tlIds, controlled, TrafficLightIndex::edgeOfLane,
+                TrafficLightIndex::computeSignalPosition, TrafficLightIndex::junctionFallbackPosition);
+    }
+
+    /**
+     * Build the same tables from the parsed network file (no TraCI calls)
+     */
+    public static TrafficLightIndex fromNetwork(SumoNetwork network) {
+        RoadGeometryStore roads = network.getRoads();
+        int tlCount = network.getTrafficLightCount();
+        String[] tlIds = new String[tlCount];
+        List<List<String>> controlled = new ArrayList<>(tlCount);
+        for (int t = 0; t < tlCount; t++) {
+            tlIds[t] = network.getTlId(t);
+            List<String> lanes = new ArrayList<>(network.getTlLinkCount(t));
+            for (int link = 0; link < network.getTlLinkCount(t); link++) {
+                lanes.add(network.getTlLinkLane(t, link));
+            }
+            controlled.add(lanes);
+        }
+
+        Function<String, String> edgeOf = laneId -> {
+            int lane = roads.getLaneIndex(laneId);
+            return lane >= 0 ? roads.getEdgeId(roads.getLaneEdge(lane)) : laneId.split("_")[0];
+        };
+        Function<String, double[]> position = laneId -> {
+            int lane = roads.getLaneIndex(laneId);
+            if (lane < 0 || roads.getLaneEnd(lane) - roads.getLaneStart(lane) < 2) return null;
+            int last = roads.getLaneEnd(lane) - 1;
+            return signalPosition(roads.getX(last - 1), roads.getY(last - 1), roads.getX(last), roads.getY(last));
+        };
+        return index(tlIds, controlled, edgeOf, position, (laneId, link) -> new double[]{Double.NaN, Double.NaN});
+    }
+
+    /**
+     * Intern the controlled lanes into the flat int tables and place the signal heads
+     */
+    private static TrafficLightIndex index(String[] tlIds, List<List<String>> controlled,
+                                           Function<String, String> edgeOf,
+                                           Function<String, double[]> position,
+                                           BiFunction<String, Integer, double[]> fallback) {
+        int tlCount = tlIds.length;
+        Map<String, Integer> laneNumbers = new LinkedHashMap<>();
+        Map<String, Integer> edgeNumbers = new LinkedHashMap<>();
+        List<Integer> laneEdgeList = new ArrayList<>();
+        Map<String, double[]> lanePositions = new HashMap<>(); // Signal head per lane (null = no shape)
+
+        // 1. Size the controlled lanes into flat slots
+        int[] linkOffset = new int[tlCount + 1];
+        for (int t = 0; t < tlCount; t++) {
+            linkOffset[t + 1] = linkOffset[t] + controlled.get(t).size();
+        }
+
+        int totalLinks = linkOffset[tlCount];
+        int[] linkLane = new int[totalLinks];
+        int[] countedOffset = new int[tlCount + 1];
+        int[] countedLinks = new int[totalLinks];
+        double[] signalX = new double[totalLinks];
+        double[] signalY = new double[totalLinks];
+
+        for (int t = 0; t < tlCount; t++) {
+            List<String> lanes = controlled.get(t);
+            int base = linkOffset[t];
+            int countedSize = countedOffset[t];
+            boolean[] edgeSeen = new boolean[0];
+
+            for (int i = 0; i < lanes.size(); i++) {
+                String laneId = lanes.get(i);
+                if (laneId.isEmpty()) {
+                    // Unused link index (padding from the net file): keeps the alignment, counts nowhere
+                    linkLane[base + i] = NO_LANE;
+                    signalX[base + i] = Double.NaN;
+                    signalY[base + i] = Double.NaN;
+                    continue;
+                }
+
+                // 2. Intern lane and edge into the int dictionaries
+                Integer lane = laneNumbers.get(laneId);
+                if (lane == null) {
+                    lane = laneNumbers.size();
+                    laneNumbers.put(laneId, lane);
+                    String edgeId = edgeOf.apply(laneId);
+                    Integer edge = edgeNumbers.computeIfAbsent(edgeId, k -> edgeNumbers.size());
+                    laneEdgeList.add(edge);
+                }
+                linkLane[base + i] = lane;
+
+                // 3. Edge-based deduplication: only the first link of each edge is counted
+                int edge = laneEdgeList.get(lane);
+                if (edge >= edgeSeen.length) {
+                    edgeSeen = Arrays.copyOf(edgeSeen, Math.max(edge + 1, edgeSeen.length * 2));
+                }
+                if (!edgeSeen[edge]) {
+                    edgeSeen[edge] = true;
+                    countedLinks[countedSize++] = i;
+                }
+
+                // 4. Signal-head position (lane end, or junction position with offset as fallback)
+                double[] pos = lanePositions.computeIfAbsent(laneId, position);
+                if (pos == null) {
+                    pos = fallback.apply(laneId, i);
+                }
+                signalX[base + i] = pos[0];
+                signalY[base + i] = pos[1];
+            }
+            countedOffset[t + 1] = countedSize;
+        }
+
+        int[] laneEdge = laneEdgeList.stream().mapToInt(Integer::intValue).toArray();
+        TrafficLightIndex index = new TrafficLightIndex(tlIds,
+                laneNumbers.keySet().toArray(new String[0]), laneEdge,
+                edgeNumbers.keySet().toArray(new String[0]),
+                linkOffset, linkLane, countedOffset, Arrays.copyOf(countedLinks, countedOffset[tlCount]),
+                signalX, signalY);
+        logger.info("Traffic light topology indexed: {} TLs, {} lanes, {} edges",
+                tlCount, index.laneIds.length, index.edgeIds.length);
+        return index;
+    }
+
+    /**
+     * Subscribe the RYG state of every traffic light (one bulk read per step afterwards)
+     */
+    public void subscribeStates() {
+        // SWIG vectors need the native library, so they are only created once connected
+        IntVector stateVariable = new IntVector(new int[]{Constants.TL_RED_YELLOW_GREEN_STATE});
+        for (String tlId : tlIds) {
+            try {
+                TrafficLight.subscribe(tlId, stateVariable);
+            } catch (Exception e) {
+                logger.warn("Failed to subscribe TL {}: {}", tlId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read all subscribed RYG states in one call, ordered by TL number (lower-case)
+     */
+    public String[] readStates() {
+        String[] states = new String[tlIds.length];
+        Arrays.fill(states, "");
+        SubscriptionResults results = TrafficLight.getAllSubscriptionResults();
+        for (Map.Entry<String, TraCIResults> entry : results.entrySet()) {
+            Integer t = tlNumbers.get(entry.getKey());
+            if (t == null) continue;
+            try {
+                states[t] = TraCIString.cast(entry.getValue().get(Constants.TL_RED_YELLOW_GREEN_STATE))
+                        .getValue().toLowerCase();
+            } catch (Exception e) {
+                logger.warn("TL state error {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return states;
+    }
+
+    public int size() { return tlIds.length; }
+    public String getTlId(int t) { return tlIds[t]; }
+    public int getLinkCount(int t) { return linkOffset[t + 1] - linkOffset[t]; }
+    public int getLinkOffset(int t) { return linkOffset[t]; }
+    public String getLaneId(int t, int link) { return laneAt(linkOffset[t] + link); }
+    public String getEdgeId(int t, int link) {
+        int lane = linkLane[linkOffset[t] + link];
+        return lane == NO_LANE ? "" : edgeIds[laneEdge[lane]];
+    }
+    public int getCountedLinkCount(int t) { return countedOffset[t + 1] - countedOffset[t]; }
+    public int getCountedLink(int t, int k) { return countedLinks[countedOffset[t] + k]; }
+
+    /**
+     * Signal-head coordinates by flat link slot (getLinkOffset(t) + link); NaN if unknown
+     */
+    public double getSignalX(int slot) { return signalX[slot]; }
+    public double getSignalY(int slot) { return signalY[slot]; }
+
+    /**
+     * Controlled lanes of one traffic light in link order (for the TL control dialog);
+     * unused link indices are "" so positions still match the state string
+     */
+    public List<String> getControlledLanes(int t) {
+        List<String> lanes = new ArrayList<>(getLinkCount(t));
+        for (int slot = linkOffset[t]; slot < linkOffset[t + 1]; slot++) {
+            lanes.add(laneAt(slot));
+        }
+        return lanes;
+    }
+
+    private String laneAt(int slot) {
+        int lane = linkLane[slot];
+        return lane == NO_LANE ? "" : laneIds[lane];
+    }
+
+    private static String edgeOfLane(String laneId) {
+        try {
+            return Lane.getEdgeID(laneId);
+        } catch (Exception e) {
+            return laneId.split("_")[0];
+        }
+    }
+
+    /**
+     * Place the signal ~2 meters before the lane end with a lateral offset, based on the last lane segment
+     */
+    private static double[] computeSignalPosition(String laneId) {
+        try {
+            TraCIPositionVector shape = Lane.getShape(laneId);
+            List<TraCIPosition> points = shape.getValue();
+            if (points.size() < 2) return null;
+
+            TraCIPosition pLast = points.get(points.size() - 1);
+            TraCIPosition pPrev = points.get(points.size() - 2);
+            return signalPosition(pPrev.getX(), pPrev.getY(), pLast.getX(), pLast.getY());
+        } catch (Exception e) {
+            return null; // Caller falls back to the junction position
+        }
+    }
+
+    /**
+     * Signal-head position from the last lane segment (prevX/prevY -> lastX/lastY)
+     */
+    private static double[] signalPosition(double prevX, double prevY, double lastX, double lastY) {
+        double dx = lastX - prevX;
+        double dy = lastY - prevY;
+        double len = Math.hypot(dx, dy);
+
+        // Calculate back-off position (place the light ~2 meters before the lane end)
+        double ratio = (len > 2.0) ? (2.0 / len) : 0;
+        double bx = lastX - ratio * dx;
+        double by = lastY - ratio * dy;
+
+        // Apply lateral offset (using normal vector) to prevent icons from overlapping at junctions
+        if (len > 0) {
+            bx += (-dy / len) * 1.5;
+            by += (dx / len) * 1.5;
+        }
+        return new double[]{bx, by};
+    }
+
+    /**
+     * Junction position with a manual per-link offset, used when the lane shape is unavailable
+     */
+    private static double[] junctionFallbackPosition(String laneId, int link) {
+        try {
+            String node = Edge.getToJunction(edgeOfLane(laneId));
+            TraCIPosition junc = Junction.getPosition(node);
+            return new double[]{junc.getX() + (link - 2) * 2, junc.getY() + (link - 2) * 2};
+        } catch (Exception e) {
+            logger.warn("No signal position for lane {}: {}", laneId, e.getMessage());
+            return new double[]{Double.NaN, Double.NaN};
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+
+/**
+ * Draws the vehicles of a snapshot as heading-rotated triangles in the map's layer space
+ * (world position * mapScale, Y-axis inverted), without per-vehicle transforms.
+ * The rotated glyph vertices are computed directly and appended to one fill path per status color
+ * (static/congested/running) plus one outline path, so a frame costs four shape draws regardless of
+ * the vehicle count. Paths, label buffers, font and stroke are reused across frames.
+ * Used on the EDT only.
+ */
+public class VehiclePainter {
+    private static final Color[] STATUS_COLORS = {Color.GRAY, Color.ORANGE, Color.BLUE};
+    private static final double CONGESTED_SPEED = 5.0; // m/s
+
+    // Glyph: triangle pointing "forward" (upward before rotation), in units of the glyph size
+    private static final double[] GLYPH_X = {0, -0.5, 0.5};
+    private static final double[] GLYPH_Y = {-1, 0.5, 0.5};
+
+    private final DoublePredicate speedFilter;
+    private final Path2D.Float[] fills = new Path2D.Float[STATUS_COLORS.length];
+    private final Path2D.Float outlines = new Path2D.Float(Path2D.WIND_NON_ZERO, 1024);
+    private int[] labelVehicle = new int[256]; // Vehicles to label, with their anchor position
+    private float[] labelX = new float[256];
+    private float[] labelY = new float[256];
+    private Font labelFont;
+    private Stroke outlineStroke; // One device pixel in layer space (scaled by mapScale)
+    private float outlineScale;
+
+    /**
+     * speedFilter decides by a vehicle's speed whether it is drawn (the map's filter mode)
+     */
+    public VehiclePainter(DoublePredicate speedFilter) {
+        this.speedFilter = speedFilter;
+        for (int c = 0; c < fills.length; c++) {
+            fills[c] = new Path2D.Float(Path2D.WIND_NON_ZERO, 1024);
+        }
+    }
+
+    public void paint(Graphics2D g, WorldSnapshot.Vehicles vehicles, float mapScale, boolean showLabels) {
+        // 1. Per-frame constants: glyph size, label font and outline stroke (cached per zoom)
+        int size = Math.max(2, (int) (8 * mapScale));
+        int fontSize = Math.max(5, (int) (6 * mapScale));
+        if (showLabels && (labelFont == null || labelFont.getSize() != fontSize)) {
+            labelFont = new Font("Arial", Font.PLAIN, fontSize);
+        }
+        if (outlineStroke == null || outlineScale != mapScale) {
+            outlineStroke = new BasicStroke(1f / mapScale);
+            outlineScale = mapScale;
+        }
+        for (Path2D.Float fill : fills) fill.reset(); // Keeps the coordinate arrays
+        outlines.reset();
+        int labels = 0;
+
+        // 2. Rotated glyph vertices, appended to the path of the vehicle's status color
+        for (int i = 0; i < vehicles.size(); i++) {
+            double speed = vehicles.getSpeed(i);
+            if (!speedFilter.test(speed)) continue;
+
+            float x = (float) (vehicles.getX(i) * mapScale);
+            float y = (float) (-vehicles.getY(i) * mapScale);
+            // SUMO's heading is clockwise from North, as is rotate() on the Y-down screen
+            double radians = Math.toRadians(vehicles.getAngle(i));
+            double cos = Math.cos(radians) * size;
+            double sin = Math.sin(radians) * size;
+
+            Path2D.Float fill = fills[speed <= 0 ? 0 : speed < CONGESTED_SPEED ? 1 : 2];
+            for (int v = 0; v < GLYPH_X.length; v++) {
+                float vx = (float) (x + GLYPH_X[v] * cos - GLYPH_Y[v] * sin);
+                float vy = (float) (y + GLYPH_X[v] * sin + GLYPH_Y[v] * cos);
+                if (v == 0) {
+                    fill.moveTo(vx, vy);
+                    outlines.moveTo(vx, vy);
+                } else {
+                    fill.lineTo(vx, vy);
+                    outlines.lineTo(vx, vy);
+                }
+            }
+            fill.closePath();
+            outlines.closePath();
+
+            if (showLabels) {
+                if (labels == labelVehicle.length) growLabels();
+                labelVehicle[labels] = i;
+                labelX[labels] = x + size;
+                labelY[labels] = y - size;
+                labels++;
+            }
+        }
+
+        // 3. One fill per color, one outline pass, then the labels on top
+        Stroke previousStroke = g.getStroke();
+        for (int c = 0; c < fills.length; c++) {
+            g.setColor(STATUS_COLORS[c]);
+            g.fill(fills[c]);
+        }
+        g.setColor(Color.BLACK);
+        g.setStroke(outlineStroke);
+        g.draw(outlines);
+        g.setStroke(previousStroke);
+
+        if (labels > 0) {
+            g.setFont(labelFont);
+            for (int l = 0; l < labels; l++) {
+                g.drawString(vehicles.getId(labelVehicle[l]), labelX[l], labelY[l]);
+            }
+        }
+    }
+
+    private void growLabels() {
+        int capacity = labelVehicle.length * 2;
+        labelVehicle = Arrays.copyOf(labelVehicle, capacity);
+        labelX = Arrays.copyOf(labelX, capacity);
+        labelY = Arrays.copyOf(labelY, capacity);
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental set of live vehicles, maintained from the departed/arrived lists of every step.
+ * Each live vehicle owns a dense int slot in [0, size()) (arrivals are swap-removed), and all
+ * per-vehicle columns are primitive arrays indexed by that slot.
+ * Global aggregates (distance, travel time, running/congested counts) are only updated by deltas.
+ */
+public class VehicleRegistry {
+    // Speed classes per vehicle, used to keep the running/congested counters incrementally
+    private static final byte STOPPED = 0;
+    private static final byte RUNNING = 1;
+    private static final byte CONGESTED = 2; // Running, but below the congestion threshold
+
+    private final double congestionThresholdMs;
+    private final Map<String, Integer> slots = new HashMap<>(); // Vehicle ID -> slot
+
+    // Per-slot columns (valid for [0, count))
+    private String[] ids = new String[256];
+    private double[] x = new double[256];
+    private double[] y = new double[256];
+    private double[] angle = new double[256];
+    private double[] speed = new double[256];
+    private double[] distance = new double[256];  // Odometer at the last update (m)
+    private double[] departure = new double[256]; // Departure time (s)
+    private double[] lastTime = new double[256];  // Simulation time of the last update (s)
+    private byte[] speedClass = new byte[256];
+    private boolean[] read = new boolean[256];    // Values read at least once via update()
+    private int[] seen = new int[256];            // Update stamp, to drop vehicles that vanished silently
+    private int count = 0;
+
+    // Global aggregates over all vehicles ever seen (arrived ones included)
+    private double totalDistance = 0; // m
+    private double totalTime = 0;     // s
+    private double estimatedDistance = 0; // Part of totalDistance estimated for arrivals inside step batches (m)
+    private int running = 0;
+    private int congested = 0;
+    private int departedTotal = 0;
+    private int arrivedTotal = 0;
+    private int stamp = 0;
+
+    public VehicleRegistry(double congestionThresholdKmh) {
+        this.congestionThresholdMs = congestionThresholdKmh / 3.6;
+    }
+
+    /**
+     * Register a vehicle that entered the network; returns false if it is already known
+     */
+    public boolean add(String id, double departureTime) {
+        if (slots.containsKey(id)) return false;
+        if (count == ids.length) grow();
+        int slot = count++;
+        slots.put(id, slot);
+        ids[slot] = id;
+        x[slot] = y[slot] = angle[slot] = Double.NaN;
+        speed[slot] = 0;
+        distance[slot] = 0;
+        departure[slot] = departureTime;
+        lastTime[slot] = departureTime;
+        speedClass[slot] = STOPPED;
+        read[slot] = false;
+        seen[slot] = stamp;
+        departedTotal++;
+        return true;
+    }
+
+    /**
+     * Register a vehicle that is already under way (after a state was loaded): the current odometer and
+     * time become its baseline, so only what it drives from now on is added to the restored totals
+     */
+    public boolean adopt(String id, double departureTime, double odometer, double simTime) {
+        if (!add(id, departureTime)) return false;
+        int slot = slots.get(id);
+        distance[slot] = odometer;
+        lastTime[slot] = simTime;
+        departedTotal--; // Its departure is already part of the restored totals
+        return true;
+    }
+
+    /**
+     * Remove an arrived vehicle (the last slot moves into the freed one)
+     */
+    public void remove(String id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) return;
+        release(slot);
+        arrivedTotal++;
+    }
+
+    /**
+     * Remove an arrived vehicle whose values were last read at lastTime (the previous step, or the start
+     * of a multi-step batch). Its travel time up to the arrival is exact; the distance since the last read
+     * is estimated from its last read speed, standing still included (fallbackSpeed only if it was never
+     * read), and kept in getEstimatedDistance().
+     */
+    public void arrive(String id, double simTime, double fallbackSpeed) {
+        Integer boxed = slots.get(id);
+        if (boxed == null) return;
+        int slot = boxed;
+        double deltaTime = simTime - lastTime[slot];
+        if (deltaTime > 0) {
+            double estimate = (read[slot] ? speed[slot] : fallbackSpeed) * deltaTime;
+            totalTime += deltaTime;
+            totalDistance += estimate;
+            estimatedDistance += estimate;
+        }
+        remove(id);
+    }
+
+    /**
+     * Start a new update round; vehicles not touched via update() before sweep() are dropped
+     */
+    public void beginUpdate() {
+        stamp++;
+    }
+
+    /**
+     * Apply the values read for one vehicle in this step and fold the deltas into the aggregates.
+     * Returns false for unknown vehicles.
+     */
+    public boolean update(String id, double simTime, double px, double py, double heading,
+                          double currentSpeed, double odometer) {
+        Integer boxed = slots.get(id);
+        if (boxed == null) return false;
+        int slot = boxed;
+
+        // 1. Distance/time deltas since the previous update of this vehicle
+        double deltaDistance = odometer - distance[slot];
+        if (deltaDistance > 0) totalDistance += deltaDistance;
+        double deltaTime = simTime - lastTime[slot];
+        if (deltaTime > 0) totalTime += deltaTime;
+        distance[slot] = odometer;
+        lastTime[slot] = simTime;
+
+        // 2. Speed class transitions adjust the running/congested counters
+        byte newClass = currentSpeed <= 0 ? STOPPED : currentSpeed < congestionThresholdMs ? CONGESTED : RUNNING;
+        byte oldClass = speedClass[slot];
+        if (newClass != oldClass) {
+            if (oldClass != STOPPED) running--;
+            if (oldClass == CONGESTED) congested--;
+            if (newClass != STOPPED) running++;
+            if (newClass == CONGESTED) congested++;
+            speedClass[slot] = newClass;
+        }
+
+        x[slot] = px;
+        y[slot] = py;
+        angle[slot] = heading;
+        speed[slot] = currentSpeed;
+        read[slot] = true;
+        seen[slot] = stamp;
+        return true;
+    }
+
+    /**
+     * Drop vehicles that were not updated in this round (e.g. removed without appearing as arrived)
+     */
+    public int sweep() {
+        int dropped = 0;
+        for (int slot = count - 1; slot >= 0; slot--) {
+            if (seen[slot] != stamp) {
+                slots.remove(ids[slot]);
+                release(slot);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Forget all vehicles and aggregates (simulation restarted)
+     */
+    public void clear() {
+        slots.clear();
+        Arrays.fill(ids, 0, count, null);
+        count = 0;
+        totalDistance = 0;
+        totalTime = 0;
+        estimatedDistance = 0;
+        running = 0;
+        congested = 0;
+        departedTotal = 0;
+        arrivedTotal = 0;
+    }
+
+    /**
+     * Set the aggregates saved with a checkpoint (after clear(), before the live vehicles are adopted)
+     */
+    public void restoreTotals(double distance, double estimated, double time, int departed, int arrived) {
+        totalDistance = distance;
+        estimatedDistance = estimated;
+        totalTime = time;
+        departedTotal = departed;
+        arrivedTotal = arrived;
+    }
+
+    /**
+     * Immutable copy of the live columns for publishing in a WorldSnapshot
+     */
+    public WorldSnapshot.Vehicles toVehicles() {
+        return new WorldSnapshot.Vehicles(count, Arrays.copyOf(ids, count),
+                Arrays.copyOf(x, count), Arrays.copyOf(y, count), Arrays.copyOf(angle, count),
+                Arrays.copyOf(speed, count), Arrays.copyOf(distance, count), Arrays.copyOf(departure, count));
+    }
+
+    public int size() { return count; }
+    public boolean contains(String id) { return slots.containsKey(id); }
+    public int getRunning() { return running; }
+    public int getCongested() { return congested; }
+    public int getDepartedTotal() { return departedTotal; }
+    public int getArrivedTotal() { return arrivedTotal; }
+    public double getTotalDistance() { return totalDistance; }
+    public double getTotalTime() { return totalTime; }
+    public double getEstimatedDistance() { return estimatedDistance; }
+
+    /**
+     * Mean speed of the live vehicles at the last read (m/s)
+     */
+    public double getMeanSpeed() {
+        double sum = 0;
+        for (int slot = 0; slot < count; slot++) {
+            sum += speed[slot];
+        }
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    /**
+     * Average speed over everything driven so far (km/h)
+     */
+    public double getAverageSpeedKmh() {
+        return totalTime > 0 ? (totalDistance / 1000.0) / (totalTime / 3600.0) : 0.0;
+    }
+
+    private void release(int slot) {
+        // Remove the vehicle's contribution to the live counters
+        if (speedClass[slot] != STOPPED) running--;
+        if (speedClass[slot] == CONGESTED) congested--;
+
+        int last = --count;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            angle[slot] = angle[last];
+            speed[slot] = speed[last];
+            distance[slot] = distance[last];
+            departure[slot] = departure[last];
+            lastTime[slot] = lastTime[last];
+            speedClass[slot] = speedClass[last];
+            read[slot] = read[last];
+            seen[slot] = seen[last];
+            slots.put(ids[slot], slot);
+        }
+        ids[last] = null;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        distance = Arrays.copyOf(distance, capacity);
+        departure = Arrays.copyOf(departure, capacity);
+        lastTime = Arrays.copyOf(lastTime, capacity);
+        speedClass = Arrays.copyOf(speedClass, capacity);
+        read = Arrays.copyOf(read, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+    }
+}
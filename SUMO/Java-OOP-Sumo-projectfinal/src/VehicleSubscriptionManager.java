@@ -0,0 +1,265 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.sumo.libtraci.Constants;
+import org.eclipse.sumo.libtraci.IntVector;
+import org.eclipse.sumo.libtraci.Simulation;
+import org.eclipse.sumo.libtraci.StringVector;
+import org.eclipse.sumo.libtraci.SubscriptionResults;
+import org.eclipse.sumo.libtraci.TraCIDouble;
+import org.eclipse.sumo.libtraci.TraCIInt;
+import org.eclipse.sumo.libtraci.TraCIPosition;
+import org.eclipse.sumo.libtraci.TraCIResult;
+import org.eclipse.sumo.libtraci.TraCIResults;
+import org.eclipse.sumo.libtraci.TraCIStringList;
+import org.eclipse.sumo.libtraci.Vehicle;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vehicle data acquisition layer based on TraCI variable subscriptions.
+ * Vehicles are subscribed once when they depart, and all values are read back
+ * with a single getAllSubscriptionResults() call per step instead of one round trip per getter.
+ * The departed/arrived lists drive the incremental VehicleRegistry; they arrive with the step response
+ * through a Simulation domain subscription, so a step costs no extra round trip to learn them.
+ */
+public class VehicleSubscriptionManager {
+    private static final Logger logger = LogManager.getLogger(VehicleSubscriptionManager.class);
+
+    // Variables transferred for every subscribed vehicle on every step
+    // (the departure time is recorded once when the vehicle enters the registry)
+    private static final int[] STATISTIC_VARIABLES = {
+            Constants.VAR_SPEED,
+            Constants.VAR_DISTANCE
+    };
+    // Statistic variables plus the render columns (used when the whole map is drawn)
+    private static final int[] ALL_VARIABLES = {
+            Constants.VAR_SPEED,
+            Constants.VAR_DISTANCE,
+            Constants.VAR_POSITION,
+            Constants.VAR_ANGLE
+    };
+
+    // Simulation variables delivered with every step response
+    private static final int[] SIMULATION_VARIABLES = {
+            Constants.VAR_TIME,
+            Constants.VAR_DEPARTED_VEHICLES_IDS,
+            Constants.VAR_ARRIVED_VEHICLES_IDS,
+            Constants.VAR_MIN_EXPECTED_VEHICLES
+    };
+
+    private final VehicleRegistry registry;
+    private final Set<String> pendingSubscriptions = new LinkedHashSet<>(); // Departed inside the current batch
+    private int expectedVehicles = -1; // SUMO's min expected number after the last step (-1 = unknown)
+    private IntVector variables; // Created on first use: SWIG vectors need the native library loaded
+    private boolean positionsSubscribed = true;
+
+    public VehicleSubscriptionManager(double congestionThresholdKmh) {
+        this.registry = new VehicleRegistry(congestionThresholdKmh);
+    }
+
+    /**
+     * Subscribe and register every vehicle that is already in the network (used right after connecting)
+     */
+    public void subscribeAll() {
+        subscribeSimulation();
+        StringVector vehicleIds = Vehicle.getIDList();
+        subscribe(vehicleIds);
+        register(vehicleIds);
+        logger.info("Vehicle subscriptions initialized: {} vehicles", vehicleIds.size());
+    }
+
+    /**
+     * Subscribe the vehicles of a loaded checkpoint; their odometers become the registry baselines
+     * (the totals up to the checkpoint have been restored separately)
+     */
+    public void subscribeRestored(double simTime) {
+        subscribeSimulation();
+        StringVector vehicleIds = Vehicle.getIDList();
+        subscribe(vehicleIds);
+        for (String vehicleId : vehicleIds) {
+            try {
+                registry.adopt(vehicleId, Vehicle.getDeparture(vehicleId), Vehicle.getDistance(vehicleId), simTime);
+            } catch (Exception e) {
+                logger.warn("Failed to register vehicle {}: {}", vehicleId, e.getMessage());
+            }
+        }
+        logger.info("Vehicle subscriptions restored: {} vehicles", vehicleIds.size());
+    }
+
+    /**
+     * Apply the departed/arrived deltas of the last step, then read all subscription results in bulk.
+     * Must be called once after every Simulation.step().
+     */
+    public WorldSnapshot.Vehicles update(double simTime) {
+        // 1. Departed vehicles get a subscription and a registry slot (departure = now)
+        TraCIResults step = Simulation.getSubscriptionResults();
+        expectedVehicles = TraCIInt.cast(step.get(Constants.VAR_MIN_EXPECTED_VEHICLES)).getValue();
+        StringVector departed = stringList(step, Constants.VAR_DEPARTED_VEHICLES_IDS);
+        subscribe(departed);
+        for (String vehicleId : departed) {
+            registry.add(vehicleId, simTime);
+        }
+        // 2. Arrived vehicles drop out of the subscription results automatically; free their slots,
+        //    estimating their last step as in a batch, so the totals do not depend on the step mode
+        StringVector arrived = stringList(step, Constants.VAR_ARRIVED_VEHICLES_IDS);
+        if (!arrived.isEmpty()) {
+            double fallbackSpeed = registry.getMeanSpeed();
+            for (String vehicleId : arrived) {
+                registry.arrive(vehicleId, simTime, fallbackSpeed);
+            }
+        }
+        // 3. Bulk read into the registry columns
+        readVehicles(simTime);
+        return registry.toVehicles();
+    }
+
+    /**
+     * Inside a multi-step batch: apply the departed/arrived deltas of one step without the bulk read,
+     * so vehicles that depart and arrive within the batch are still counted. Everything comes from the
+     * step response; departures are only subscribed in finishBatch() if they are still under way.
+     * Must be called after every Simulation.step() of the batch. Returns the simulation time of the step.
+     */
+    public double trackBatchStep(double fallbackSpeed) {
+        TraCIResults step = Simulation.getSubscriptionResults();
+        double simTime = doubleValue(step.get(Constants.VAR_TIME));
+        expectedVehicles = TraCIInt.cast(step.get(Constants.VAR_MIN_EXPECTED_VEHICLES)).getValue();
+        for (String vehicleId : stringList(step, Constants.VAR_DEPARTED_VEHICLES_IDS)) {
+            if (registry.add(vehicleId, simTime)) {
+                pendingSubscriptions.add(vehicleId);
+            }
+        }
+        for (String vehicleId : stringList(step, Constants.VAR_ARRIVED_VEHICLES_IDS)) {
+            registry.arrive(vehicleId, simTime, fallbackSpeed);
+            pendingSubscriptions.remove(vehicleId);
+        }
+        return simTime;
+    }
+
+    /**
+     * Bulk read at the end of a batch whose steps were applied with trackBatchStep()
+     */
+    public WorldSnapshot.Vehicles finishBatch(double simTime) {
+        // Subscribing returns the current values, so the batch departures are part of the bulk read
+        subscribe(pendingSubscriptions);
+        pendingSubscriptions.clear();
+        readVehicles(simTime);
+        return registry.toVehicles();
+    }
+
+    /**
+     * Vehicles running or still waiting to be inserted after the last step, from the step response
+     * (valid after update() or trackBatchStep(); no round trip)
+     */
+    public int getExpectedVehicles() {
+        return expectedVehicles;
+    }
+
+    /**
+     * Live vehicles and the running aggregates (valid after update())
+     */
+    public VehicleRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Switch between subscribing positions for every vehicle (full map) and statistics only
+     * (viewport mode, where positions come from the context subscription). Re-subscribes live vehicles.
+     */
+    public void setPositionsSubscribed(boolean subscribed) {
+        if (subscribed == positionsSubscribed) return;
+        positionsSubscribed = subscribed;
+        variables = null;
+        subscribe(Vehicle.getIDList()); // Subscribing again replaces the variable set
+        logger.info("Vehicle position subscription: {}", subscribed ? "all vehicles" : "viewport only");
+    }
+
+    /**
+     * Forget local state after the connection was restarted (new process starts with the default set)
+     */
+    public void reset() {
+        positionsSubscribed = true;
+        variables = null;
+        expectedVehicles = -1;
+        pendingSubscriptions.clear();
+        registry.clear();
+    }
+
+    /**
+     * (Re)subscribe the step variables; subscribing again after a restart or loadState is harmless
+     */
+    private void subscribeSimulation() {
+        pendingSubscriptions.clear(); // Live vehicles are subscribed from the ID list by the caller
+        Simulation.subscribe(new IntVector(SIMULATION_VARIABLES));
+    }
+
+    private void subscribe(Iterable<String> vehicleIds) {
+        if (variables == null) {
+            variables = new IntVector(positionsSubscribed ? ALL_VARIABLES : STATISTIC_VARIABLES);
+        }
+        for (String vehicleId : vehicleIds) {
+            try {
+                Vehicle.subscribe(vehicleId, variables);
+            } catch (Exception e) {
+                logger.warn("Failed to subscribe vehicle {}: {}", vehicleId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Register vehicles with their actual departure time (they may have entered before the current step)
+     */
+    private void register(Iterable<String> vehicleIds) {
+        for (String vehicleId : vehicleIds) {
+            try {
+                registry.add(vehicleId, Vehicle.getDeparture(vehicleId));
+            } catch (Exception e) {
+                logger.warn("Failed to register vehicle {}: {}", vehicleId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copy the bulk SWIG result map into the registry columns
+     */
+    private void readVehicles(double simTime) {
+        SubscriptionResults results = Vehicle.getAllSubscriptionResults();
+        registry.beginUpdate();
+        for (Map.Entry<String, TraCIResults> entry : results.entrySet()) {
+            String vehicleId = entry.getKey();
+            TraCIResults values = entry.getValue();
+            try {
+                double x = Double.NaN, y = Double.NaN, angle = Double.NaN; // Not transferred in viewport mode
+                if (positionsSubscribed) {
+                    TraCIPosition pos = TraCIPosition.cast(values.get(Constants.VAR_POSITION));
+                    x = pos.getX();
+                    y = pos.getY();
+                    angle = doubleValue(values.get(Constants.VAR_ANGLE));
+                }
+                double speed = doubleValue(values.get(Constants.VAR_SPEED));
+                double distance = doubleValue(values.get(Constants.VAR_DISTANCE));
+                if (!registry.update(vehicleId, simTime, x, y, angle, speed, distance)) {
+                    // Subscribed but never seen departing (e.g. inserted while values were read): adopt it
+                    registry.add(vehicleId, simTime);
+                    registry.update(vehicleId, simTime, x, y, angle, speed, distance);
+                }
+            } catch (Exception e) {
+                logger.warn("Skip subscription result for {}: {}", vehicleId, e.getMessage());
+            }
+        }
+        // Vehicles without results no longer exist (e.g. removed over TraCI)
+        int dropped = registry.sweep();
+        if (dropped > 0) {
+            logger.debug("Dropped {} vehicles without subscription results", dropped);
+        }
+    }
+
+    private static StringVector stringList(TraCIResults results, int variable) {
+        return TraCIStringList.cast(results.get(variable)).getValue();
+    }
+
+    private static double doubleValue(TraCIResult result) {
+        return TraCIDouble.cast(result).getValue();
+    }
+}
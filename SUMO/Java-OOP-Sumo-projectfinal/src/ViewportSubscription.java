@@ -0,0 +1,132 @@
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.sumo.libtraci.Constants;
+import org.eclipse.sumo.libtraci.IntVector;
+import org.eclipse.sumo.libtraci.POI;
+import org.eclipse.sumo.libtraci.SubscriptionResults;
+import org.eclipse.sumo.libtraci.TraCIColor;
+import org.eclipse.sumo.libtraci.TraCIDouble;
+import org.eclipse.sumo.libtraci.TraCIPosition;
+import org.eclipse.sumo.libtraci.TraCIResults;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Viewport-limited vehicle retrieval.
+ * An invisible POI is kept at the center of the visible map area and carries a vehicle context
+ * subscription whose radius covers the viewport, so only vehicles in view are transferred for rendering.
+ */
+public class ViewportSubscription {
+    private static final Logger logger = LogManager.getLogger(ViewportSubscription.class);
+
+    private static final String ANCHOR_POI_ID = "__viewport_anchor__";
+    private static final int[] RENDER_VARIABLES = {
+            Constants.VAR_POSITION,
+            Constants.VAR_ANGLE,
+            Constants.VAR_SPEED
+    };
+    private static final double RADIUS_MARGIN = 1.1;  // Subscribe slightly beyond the visible corners
+    private static final double SHRINK_RATIO = 0.75;  // Only re-subscribe a smaller radius after a clear zoom-in
+
+    private IntVector variables; // Created on first use: SWIG vectors need the native library loaded
+    private boolean active = false;
+    private double centerX, centerY, radius;
+
+    /**
+     * Move/resize the context subscription so it covers the given world rectangle.
+     * Must be called on the thread that drives TraCI, before the next simulation step.
+     */
+    public void update(Rectangle2D.Double viewport) {
+        double cx = viewport.getCenterX();
+        double cy = viewport.getCenterY();
+        double wanted = Math.hypot(viewport.width, viewport.height) / 2.0 * RADIUS_MARGIN;
+
+        if (!active) {
+            if (variables == null) {
+                variables = new IntVector(RENDER_VARIABLES);
+            }
+            POI.add(ANCHOR_POI_ID, cx, cy, new TraCIColor(0, 0, 0, 0), "viewport", -1000);
+            POI.subscribeContext(ANCHOR_POI_ID, Constants.CMD_GET_VEHICLE_VARIABLE, wanted, variables);
+            centerX = cx;
+            centerY = cy;
+            radius = wanted;
+            active = true;
+            logger.info("Viewport subscription created (radius {} m)", String.format("%.0f", wanted));
+            return;
+        }
+
+        // Panning only moves the anchor; the subscription follows its position
+        if (cx != centerX || cy != centerY) {
+            POI.setPosition(ANCHOR_POI_ID, cx, cy);
+            centerX = cx;
+            centerY = cy;
+        }
+
+        // Zooming changes the radius (grow immediately, shrink with hysteresis)
+        if (wanted > radius || wanted < radius * SHRINK_RATIO) {
+            POI.unsubscribeContext(ANCHOR_POI_ID, Constants.CMD_GET_VEHICLE_VARIABLE, radius);
+            POI.subscribeContext(ANCHOR_POI_ID, Constants.CMD_GET_VEHICLE_VARIABLE, wanted, variables);
+            logger.debug("Viewport subscription resized: {} m -> {} m",
+                    String.format("%.0f", radius), String.format("%.0f", wanted));
+            radius = wanted;
+        }
+    }
+
+    /**
+     * Read the vehicles inside the subscribed area (render columns only)
+     */
+    public WorldSnapshot.Vehicles read() {
+        if (!active) {
+            return WorldSnapshot.Vehicles.EMPTY;
+        }
+        SubscriptionResults results = POI.getContextSubscriptionResults(ANCHOR_POI_ID);
+        int capacity = results.size();
+        String[] ids = new String[capacity];
+        double[] x = new double[capacity];
+        double[] y = new double[capacity];
+        double[] angle = new double[capacity];
+        double[] speed = new double[capacity];
+        double[] unused = new double[capacity];
+        Arrays.fill(unused, Double.NaN); // Distance/departure are not transferred for rendering
+
+        int n = 0;
+        for (Map.Entry<String, TraCIResults> entry : results.entrySet()) {
+            TraCIResults values = entry.getValue();
+            try {
+                TraCIPosition pos = TraCIPosition.cast(values.get(Constants.VAR_POSITION));
+                x[n] = pos.getX();
+                y[n] = pos.getY();
+                angle[n] = TraCIDouble.cast(values.get(Constants.VAR_ANGLE)).getValue();
+                speed[n] = TraCIDouble.cast(values.get(Constants.VAR_SPEED)).getValue();
+                ids[n] = entry.getKey();
+                n++;
+            } catch (Exception e) {
+                logger.warn("Skip context result for {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return new WorldSnapshot.Vehicles(n, ids, x, y, angle, speed, unused, unused);
+    }
+
+    /**
+     * Drop the context subscription and its anchor POI
+     */
+    public void close() {
+        if (!active) return;
+        try {
+            POI.unsubscribeContext(ANCHOR_POI_ID, Constants.CMD_GET_VEHICLE_VARIABLE, radius);
+            POI.remove(ANCHOR_POI_ID);
+        } catch (Exception e) {
+            logger.warn("Failed to remove viewport subscription: {}", e.getMessage());
+        }
+        active = false;
+    }
+
+    /**
+     * Forget local state without TraCI calls (connection already closed or restarted)
+     */
+    public void reset() {
+        active = false;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Immutable view of the simulation world for one step.
+ * Built once per step by the business service, published atomically and shared read-only
+ * by the dashboard, the vehicle filter and the map renderer (no TraCI calls on repaint).
+ */
+public final class WorldSnapshot {
+    // Placeholder published before the first step (nothing to draw, no statistics yet)
+    public static final WorldSnapshot EMPTY = new WorldSnapshot(
+            0, 0.0, Vehicles.EMPTY, Vehicles.EMPTY, TrafficLightIndex.EMPTY, new String[0], null);
+
+    private final int step;                 // Simulation step this snapshot belongs to
+    private final double simTime;           // Simulation time (s)
+    private final Vehicles vehicles;        // Per-vehicle primitive arrays (all vehicles, statistics)
+    private final Vehicles visibleVehicles; // Vehicles to render (all, or only those in the viewport)
+    private final TrafficLightIndex trafficLights; // Static TL topology and signal positions
+    private final String[] tlStates;        // Lower-case RYG state string, per traffic light
+    private final SimulationData data;      // Dashboard statistics derived from this step
+
+    public WorldSnapshot(int step, double simTime, Vehicles vehicles, Vehicles visibleVehicles,
+                         TrafficLightIndex trafficLights, String[] tlStates,
+                         SimulationData data) {
+        this.step = step;
+        this.simTime = simTime;
+        this.vehicles = vehicles;
+        this.visibleVehicles = visibleVehicles;
+        this.trafficLights = trafficLights;
+        this.tlStates = tlStates;
+        this.data = data;
+    }
+
+    public int getStep() { return step; }
+    public double getSimTime() { return simTime; }
+    public Vehicles getVehicles() { return vehicles; }
+    public Vehicles getVisibleVehicles() { return visibleVehicles; }
+    public SimulationData getData() { return data; }
+
+    public TrafficLightIndex getTrafficLights() { return trafficLights; }
+    public String getTlState(int i) { return tlStates[i]; }
+
+    /**
+     * Vehicle columns stored as parallel primitive arrays (index = row)
+     */
+    public static final class Vehicles {
+        public static final Vehicles EMPTY = new Vehicles(0, new String[0],
+                new double[0], new double[0], new double[0], new double[0], new double[0], new double[0]);
+
+        private final int count;
+        private final String[] ids;
+        private final double[] x;
+        private final double[] y;
+        private final double[] angle;     // degrees, clockwise from north
+        private final double[] speed;     // m/s
+        private final double[] distance;  // meters driven since departure
+        private final double[] departure; // departure time (s)
+
+        public Vehicles(int count, String[] ids, double[] x, double[] y, double[] angle,
+                        double[] speed, double[] distance, double[] departure) {
+            this.count = count;
+            this.ids = ids;
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+            this.speed = speed;
+            this.distance = distance;
+            this.departure = departure;
+        }
+
+        public int size() { return count; }
+        public String getId(int i) { return ids[i]; }
+        public double getX(int i) { return x[i]; }
+        public double getY(int i) { return y[i]; }
+        public double getAngle(int i) { return angle[i]; }
+        public double getSpeed(int i) { return speed[i]; }
+        public double getDistance(int i) { return distance[i]; }
+        public double getDeparture(int i) { return departure[i]; }
+    }
+}